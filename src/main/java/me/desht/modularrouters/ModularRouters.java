@@ -2,6 +2,7 @@ package me.desht.modularrouters;
 
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
 import me.desht.modularrouters.block.tile.TileEntityTemplateFrame;
+import me.desht.modularrouters.command.CommandModularRouters;
 import me.desht.modularrouters.gui.GuiHandler;
 import me.desht.modularrouters.integration.IntegrationHandler;
 import me.desht.modularrouters.network.*;
@@ -15,6 +16,7 @@ import net.minecraftforge.fml.common.SidedProxy;
 import net.minecraftforge.fml.common.event.FMLInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPostInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
+import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
 import net.minecraftforge.fml.common.network.NetworkRegistry;
 import net.minecraftforge.fml.common.network.simpleimpl.SimpleNetworkWrapper;
 import net.minecraftforge.fml.common.registry.GameRegistry;
@@ -81,6 +83,11 @@ public class ModularRouters {
         ModNameCache.init();
     }
 
+    @Mod.EventHandler
+    public void serverStarting(FMLServerStartingEvent event) {
+        event.registerServerCommand(new CommandModularRouters());
+    }
+
     private void setupNetwork() {
         int d = 0;
         network = NetworkRegistry.INSTANCE.newSimpleChannel(ModularRouters.MODID);
@@ -91,5 +98,7 @@ public class ModularRouters {
         network.registerMessage(ParticleBeamMessage.Handler.class, ParticleBeamMessage.class, d++, Side.CLIENT);
         network.registerMessage(GuiSyncMessage.Handler.class, GuiSyncMessage.class, d++, Side.CLIENT);
         network.registerMessage(SyncUpgradeSettingsMessage.Handler.class, SyncUpgradeSettingsMessage.class, d++, Side.SERVER);
+        network.registerMessage(RouterSyncMessage.Handler.class, RouterSyncMessage.class, d++, Side.CLIENT);
+        network.registerMessage(ParticleBeamBatchMessage.Handler.class, ParticleBeamBatchMessage.class, d++, Side.CLIENT);
     }
 }
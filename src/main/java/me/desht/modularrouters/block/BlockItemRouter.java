@@ -215,6 +215,9 @@ public class BlockItemRouter extends BlockBase implements TOPInfoProvider {
         TileEntityItemRouter router = TileEntityItemRouter.getRouterAt(world, pos);
         if (router != null) {
             InventoryUtils.dropInventoryItems(world, pos, router.getBuffer());
+            for (ItemStack stack : router.getOverflow()) {
+                InventoryUtils.dropItems(world, pos, stack);
+            }
             world.updateComparatorOutputLevel(pos, this);
         }
         super.breakBlock(world, pos, blockstate);
@@ -378,7 +381,16 @@ public class BlockItemRouter extends BlockBase implements TOPInfoProvider {
     public void neighborChanged(IBlockState state, World worldIn, BlockPos pos, Block blockIn, BlockPos fromPos) {
         TileEntityItemRouter router = TileEntityItemRouter.getRouterAt(worldIn, pos);
         if (router != null) {
-            router.checkForRedstonePulse();
+            router.onNeighbourChange();
+        }
+    }
+
+    @Override
+    public void onNeighborChange(IBlockAccess world, BlockPos pos, BlockPos neighbor) {
+        // called when a neighbouring tile entity's comparator output may have changed, e.g. its inventory changed
+        TileEntityItemRouter router = TileEntityItemRouter.getRouterAt(world, pos);
+        if (router != null) {
+            router.wake();
         }
     }
 
@@ -17,8 +17,13 @@ import me.desht.modularrouters.item.upgrade.CamouflageUpgrade;
 import me.desht.modularrouters.item.upgrade.ItemUpgrade;
 import me.desht.modularrouters.item.upgrade.ItemUpgrade.UpgradeType;
 import me.desht.modularrouters.item.upgrade.Upgrade;
+import me.desht.modularrouters.logic.RouterProfiler;
 import me.desht.modularrouters.logic.RouterRedstoneBehaviour;
+import me.desht.modularrouters.logic.RouterScheduler;
+import me.desht.modularrouters.logic.RouterSyncQueue;
+import me.desht.modularrouters.logic.compiled.CompiledDetectorModule;
 import me.desht.modularrouters.logic.compiled.CompiledModule;
+import me.desht.modularrouters.network.RouterSyncMessage;
 import me.desht.modularrouters.util.RFEnergyWrapper;
 import net.darkhax.tesla.capability.TeslaCapabilities;
 import net.darkhax.tesla.lib.TeslaUtils;
@@ -45,6 +50,7 @@ import net.minecraftforge.energy.CapabilityEnergy;
 import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
 import net.minecraftforge.items.CapabilityItemHandler;
 import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
 import net.minecraftforge.items.ItemStackHandler;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -52,22 +58,27 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
 
-public class TileEntityItemRouter extends TileEntity implements ITickable, ICamouflageable {
+public class TileEntityItemRouter extends TileEntity implements ICamouflageable {
     public static final int N_MODULE_SLOTS = 9;
     public static final int N_UPGRADE_SLOTS = 5;
 
     public static final int COMPILE_MODULES = 0x01;
     public static final int COMPILE_UPGRADES = 0x02;
 
+    // fields which have changed since the router was last synced to clients; see RouterSyncMessage
+    public static final int SYNC_ALL = 0xFF;
+
     public static final String NBT_ACTIVE = "Active";
     public static final String NBT_ACTIVE_TIMER = "ActiveTimer";
     public static final String NBT_ECO_MODE = "EcoMode";
+    public static final String NBT_REACTIVE = "Reactive";
     public static final String NBT_SIDES = "Sides";
     public static final String NBT_PERMITTED = "Permitted";
     public static final String NBT_BUFFER = "Buffer";
     public static final String NBT_MODULES = "Modules";
     public static final String NBT_UPGRADES = "Upgrades";
     public static final String NBT_EXTRA = "Extra";
+    private static final String NBT_OVERFLOW = "Overflow";  // kept in the extra data
     public static final String NBT_REDSTONE_MODE = "Redstone";
     private static final String NBT_TICK_RATE = "TickRate";
     private static final String NBT_FLUID_TRANSFER_RATE = "FluidTransfer";
@@ -75,6 +86,7 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
 
     private int counter = 0;
     private int pulseCounter = 0;
+    private long lastUpdateTime = -1;  // world time of the last tick accounted for by scheduledUpdate()
 
     private RouterRedstoneBehaviour redstoneBehaviour = RouterRedstoneBehaviour.ALWAYS;
 
@@ -82,10 +94,14 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
     private final ItemStackHandler modulesHandler = new RouterItemHandler.ModuleHandler(this);
     private final ItemStackHandler upgradesHandler = new RouterItemHandler.UpgradeHandler(this);
 
-    private final List<CompiledModule> compiledModules = new ArrayList<>();
+    // compiled modules by slot (null for empty slots), and the module item each was compiled from
+    private final CompiledModule[] compiledModules = new CompiledModule[N_MODULE_SLOTS];
+    private final ItemStack[] compiledModuleStacks = new ItemStack[N_MODULE_SLOTS];
+    private CompiledModule[] executionOrder = new CompiledModule[0];  // installed modules, in execution order
     private byte recompileNeeded = COMPILE_MODULES | COMPILE_UPGRADES;
     private int tickRate = ConfigHandler.router.baseTickRate;
     private int itemsPerTick = 1;
+    private int bulkPasses;  // extra module passes allowed per execution
     private final int[] upgradeCount = new int[UpgradeType.values().length];
     private int totalUpgradeCount;
     private int moduleCount;
@@ -109,13 +125,19 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
     private int redstonePower = -1;  // current redstone power (updated via onNeighborChange())
     private int lastPower;  // tracks previous redstone power level for pulse mode
     private boolean active;  // tracks active state of router
+    private boolean shownActive;  // server-side: the active state last synced to clients
+    private long lastActiveSync = -1;  // server-side: world time when the shown active state last changed
     private int activeTimer = 0;  // used in PULSE mode to time out the active state
     private final Set<UUID> permitted = Sets.newHashSet(); // permitted user ID's from security upgrade
     private byte sidesOpen;   // bitmask of which of the 6 sides are currently open
     private boolean ecoMode = false;  // track eco-mode
     private int ecoCounter = ConfigHandler.router.ecoTimeout;
+    private boolean reactive = false;  // reactive mode: an idle router only runs when woken, or for a safety poll
+    private boolean wakeRequested;  // server-side: something changed which could give an idle router work to do
     private boolean hasPulsedModules = false;
+    private int dirtySyncFields = 0;
     private NBTTagCompound extData;  // extra (persisted) data which various modules can set & read
+    private final List<ItemStack> overflow = new ArrayList<>();  // excess items waiting to go into the buffer
     private IBlockState camouflage = null;  // block to masquerade as, set by Camo Upgrade
     private int tunedSyncValue = -1; // for synchronisation tuning, set by Sync Upgrade
     private boolean executing;  // are we currently executing modules?
@@ -162,12 +184,13 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
 
         compound.setByte(NBT_REDSTONE_MODE, (byte) redstoneBehaviour.ordinal());
         compound.setBoolean(NBT_ECO_MODE, ecoMode);
+        compound.setBoolean(NBT_REACTIVE, reactive);
         compound.setInteger(NBT_TICK_RATE, tickRate);
         compound.setInteger(NBT_ITEMS_PER_TICK, itemsPerTick);
         compound.setInteger(NBT_FLUID_TRANSFER_RATE, fluidTransferRate);
 
         // these fields are needed for rendering
-        compound.setBoolean(NBT_ACTIVE, active);
+        compound.setBoolean(NBT_ACTIVE, isShownActive());
         compound.setByte(NBT_SIDES, sidesOpen);
         if (camouflage != null) {
             CamouflageUpgrade.writeToNBT(compound, camouflage);
@@ -223,10 +246,11 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
         setActive(newActive);
         setSidesOpen(newSidesOpen);
         setEcoMode(newEco);
+        setReactiveMode(compound.getBoolean(NBT_REACTIVE));
         setCamouflage(camo);
 
         if (rerenderNeeded) {
-            getWorld().markBlockRangeForRenderUpdate(pos, pos);
+            ModularRouters.proxy.markForRenderUpdate(pos);
         }
     }
 
@@ -320,9 +344,10 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
             // shouldn't ever happen...
             redstoneBehaviour = RouterRedstoneBehaviour.ALWAYS;
         }
-        active = nbt.getBoolean(NBT_ACTIVE);
+        active = shownActive = nbt.getBoolean(NBT_ACTIVE);
         activeTimer = nbt.getInteger(NBT_ACTIVE_TIMER);
         ecoMode = nbt.getBoolean(NBT_ECO_MODE);
+        reactive = nbt.getBoolean(NBT_REACTIVE);
 
         NBTTagCompound ext = nbt.getCompoundTag(NBT_EXTRA);
         NBTTagCompound ext1 = getExtData();
@@ -331,6 +356,14 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
                 ext1.setTag(key, ext.getTag(key));
             }
         }
+        overflow.clear();
+        NBTTagList overflowList = ext1.getTagList(NBT_OVERFLOW, Constants.NBT.TAG_COMPOUND);
+        for (int i = 0; i < overflowList.tagCount(); i++) {
+            ItemStack stack = new ItemStack(overflowList.getCompoundTagAt(i));
+            if (!stack.isEmpty()) {
+                overflow.add(stack);
+            }
+        }
 
         // When restoring, give the counter a random initial value to avoid all saved routers
         // having the same counter and firing simultaneously, which could conceivably cause lag
@@ -350,9 +383,19 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
         nbt.setBoolean(NBT_ACTIVE, active);
         nbt.setInteger(NBT_ACTIVE_TIMER, activeTimer);
         nbt.setBoolean(NBT_ECO_MODE, ecoMode);
+        nbt.setBoolean(NBT_REACTIVE, reactive);
 
         NBTTagCompound ext = new NBTTagCompound();
         NBTTagCompound ext1 = getExtData();
+        if (overflow.isEmpty()) {
+            ext1.removeTag(NBT_OVERFLOW);
+        } else {
+            NBTTagList overflowList = new NBTTagList();
+            for (ItemStack stack : overflow) {
+                overflowList.appendTag(stack.writeToNBT(new NBTTagCompound()));
+            }
+            ext1.setTag(NBT_OVERFLOW, overflowList);
+        }
         for (String key : ext1.getKeySet()) {
             ext.setTag(key, ext1.getTag(key));
         }
@@ -362,13 +405,56 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
     }
 
     @Override
-    public void update() {
-        if (recompileNeeded != 0) {
-            compile();
+    public void onLoad() {
+        if (!getWorld().isRemote) {
+            getScheduler().schedule(this, getWorld().getTotalWorldTime() + 1);
         }
+    }
 
-        if (getWorld().isRemote) {
-            return;
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        if (getWorld() != null && !getWorld().isRemote) {
+            getScheduler().unschedule(this);
+            unloadModules();
+        }
+    }
+
+    @Override
+    public void onChunkUnload() {
+        super.onChunkUnload();
+        if (!getWorld().isRemote) {
+            getScheduler().unschedule(this);
+            unloadModules();
+        }
+    }
+
+    private void unloadModules() {
+        for (CompiledModule cm : compiledModules) {
+            if (cm != null) {
+                cm.onRouterUnloaded(this);
+            }
+        }
+    }
+
+    private RouterScheduler getScheduler() {
+        return RouterScheduler.getScheduler(getWorld());
+    }
+
+    /**
+     * Called by the router scheduler (server-side only) when this router has something to do.  Any ticks
+     * since the last update are accounted for first; by construction nothing was due on those ticks.
+     *
+     * @param now the current total world time
+     */
+    public void scheduledUpdate(long now) {
+        if (lastUpdateTime >= 0 && now - lastUpdateTime > 1) {
+            skipTicks(now - lastUpdateTime - 1);
+        }
+        lastUpdateTime = now;
+
+        if (recompileNeeded != 0) {
+            compile();
         }
 
         counter++;
@@ -383,8 +469,9 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
                 }
             }
         } else {
-            if (counter >= getTickRate()) {
+            if (counter >= getTickRate() && (!isSleeping() || counter >= ConfigHandler.router.reactivePollInterval)) {
                 allocateFluidTransfer(counter);
+                wakeRequested = false;
                 executeModules(false);
                 counter = 0;
             }
@@ -397,9 +484,115 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
                 ecoCounter--;
             }
         }
+
+        updateShownActive();
+        scheduleNextUpdate();
+    }
+
+    /**
+     * Account for a number of ticks on which the router had nothing to do.
+     *
+     * @param ticks number of ticks
+     */
+    private void skipTicks(long ticks) {
+        int n = (int) Math.min(ticks, Integer.MAX_VALUE / 2);
+        counter += n;
+        pulseCounter += n;
+        if (getRedstoneBehaviour() == RouterRedstoneBehaviour.PULSE && activeTimer > 0) {
+            // leave at least one tick so the next update can turn the router inactive
+            activeTimer = Math.max(1, activeTimer - n);
+        }
+        if (ecoMode) {
+            ecoCounter = active ? ConfigHandler.router.ecoTimeout : Math.max(0, ecoCounter - n);
+        }
+    }
+
+    /**
+     * Bring the router's counters up to date with the end of the previous world tick; used when router
+     * state is about to change outside a scheduled update.
+     */
+    private void catchUp() {
+        long now = getWorld().getTotalWorldTime();
+        if (lastUpdateTime >= 0 && now - 1 > lastUpdateTime) {
+            skipTicks(now - 1 - lastUpdateTime);
+            lastUpdateTime = now - 1;
+        }
+    }
+
+    private void scheduleNextUpdate() {
+        int delay = ticksUntilNextUpdate();
+        if (delay > 0) {
+            getScheduler().schedule(this, Math.max(lastUpdateTime, getWorld().getTotalWorldTime() - 1) + delay);
+        }
+        if (shownActive != active) {
+            // visible active state change was held back; make sure it gets synced eventually
+            getScheduler().schedule(this, lastActiveSync + ConfigHandler.router.activeStateDwellTicks);
+        }
+    }
+
+    /**
+     * Work out how many ticks after the last update the router next needs to do something.
+     *
+     * @return the number of ticks, or -1 if the router has nothing to do until something external happens
+     */
+    private int ticksUntilNextUpdate() {
+        if (recompileNeeded != 0) {
+            return 1;
+        }
+        if (getRedstoneBehaviour() == RouterRedstoneBehaviour.PULSE) {
+            return activeTimer > 0 ? activeTimer : -1;
+        }
+        int delay = Math.max(1, tickRate - counter);
+        if (ecoMode && !active) {
+            // the low-power tick rate kicks in once the eco counter has run down
+            int ecoDelay = ecoCounter + 1;
+            if (delay >= ecoDelay) {
+                delay = Math.max(ecoDelay, ConfigHandler.router.lowPowerTickRate - counter);
+            }
+        }
+        if (isSleeping()) {
+            // nothing to do until woken up, apart from the occasional safety poll
+            delay = Math.max(delay, ConfigHandler.router.reactivePollInterval - counter);
+        }
+        return delay;
+    }
+
+    /**
+     * An idle router in reactive mode sleeps until something it might care about changes.
+     *
+     * @return true if the router is sleeping
+     */
+    private boolean isSleeping() {
+        return reactive && !active && !wakeRequested;
+    }
+
+    /**
+     * Called when something has changed which could give the router some work to do: a neighbouring block or
+     * inventory, the router's buffer, or (for some modules) something at a module's target.  Only has any effect
+     * on an idle router in reactive mode; the router runs again as soon as its tick rate allows.
+     */
+    public void wake() {
+        if (!reactive || wakeRequested || executing || getWorld() == null || getWorld().isRemote) {
+            return;
+        }
+        wakeRequested = true;
+        if (getRedstoneBehaviour() != RouterRedstoneBehaviour.PULSE) {
+            catchUp();
+            scheduleNextUpdate();
+        }
     }
 
     private void executeModules(boolean pulsed) {
+        if (RouterProfiler.isEnabled()) {
+            long start = System.nanoTime();
+            doExecuteModules(pulsed, true);
+            RouterProfiler.recordRouter(this, System.nanoTime() - start);
+        } else {
+            doExecuteModules(pulsed, false);
+        }
+    }
+
+    private void doExecuteModules(boolean pulsed, boolean profiling) {
         executing = true;
 
         boolean newActive = false;
@@ -407,17 +600,41 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
         boolean powered = pulsed ? true : getRedstonePower() > 0;
 
         if (redstoneBehaviour.shouldRun(powered, pulsed)) {
+            drainOverflow();
             if (prevCanEmit || canEmit) {
                 Arrays.fill(newRedstoneLevels, 0);
                 Arrays.fill(newSignalType, SignalType.NONE);
             }
             for (CompiledModule cm : compiledModules) {
-                if (cm != null && cm.hasTarget() && cm.shouldRun(powered, pulsed) && cm.execute(this)) {
-                    newActive = true;
-                    if (cm.termination()) {
-                        break;
+                if (cm != null) {
+                    cm.beginRun(pulsed, bufferHandler.getChangeCount());
+                }
+            }
+            // with bulk upgrades, keep making passes while items are still moving through the buffer;
+            // extra passes only run the modules which just move items (see CompiledModule#allowsBulkPasses)
+            int passes = 0;
+            boolean again;
+            do {
+                int changes = bufferHandler.getChangeCount();
+                boolean terminated = false;
+                for (CompiledModule cm : executionOrder) {
+                    if (passes > 0 && !cm.allowsBulkPasses()) {
+                        continue;
+                    }
+                    if (cm.hasTarget() && !cm.isBackedOff() && cm.shouldRun(powered, pulsed) && executeModule(cm, profiling)) {
+                        newActive = true;
+                        if (cm.termination()) {
+                            terminated = true;
+                            break;
+                        }
                     }
                 }
+                again = !terminated && passes++ < bulkPasses && bufferHandler.getChangeCount() != changes;
+            } while (again);
+            for (CompiledModule cm : compiledModules) {
+                if (cm != null) {
+                    cm.endRun(pulsed);
+                }
             }
             if (prevCanEmit || canEmit) {
                 handleRedstoneEmission();
@@ -428,6 +645,19 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
         executing = false;
     }
 
+    private boolean executeModule(CompiledModule cm, boolean profiling) {
+        boolean res;
+        if (profiling) {
+            long start = System.nanoTime();
+            res = cm.execute(this);
+            RouterProfiler.recordModule(cm.getModuleType(), System.nanoTime() - start);
+        } else {
+            res = cm.execute(this);
+        }
+        cm.recordExecution(res, bufferHandler.getChangeCount());
+        return res;
+    }
+
     public int getTickRate() {
         return ecoMode && ecoCounter == 0 ? ConfigHandler.router.lowPowerTickRate : tickRate;
     }
@@ -437,11 +667,18 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
     }
 
     public void setRedstoneBehaviour(RouterRedstoneBehaviour redstoneBehaviour) {
+        boolean server = getWorld() != null && !getWorld().isRemote;
+        if (server) {
+            catchUp();
+        }
         this.redstoneBehaviour = redstoneBehaviour;
         if (redstoneBehaviour == RouterRedstoneBehaviour.PULSE) {
             lastPower = getRedstonePower();
         }
-        handleSync(false);
+        handleSync(RouterSyncMessage.REDSTONE_MODE, false);
+        if (server) {
+            scheduleNextUpdate();
+        }
     }
 
     /**
@@ -453,13 +690,48 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
         return active;
     }
 
+    /**
+     * Get the active state as clients should see it.  Server-side, this may lag behind the real active state,
+     * since changes to the visible state are rate-limited (see {@link #updateShownActive()}).
+     *
+     * @return the visible active state
+     */
+    public boolean isShownActive() {
+        return getWorld() != null && getWorld().isRemote ? active : shownActive;
+    }
+
     private void setActive(boolean newActive) {
         if (active != newActive) {
             active = newActive;
-            handleSync(true);
+            if (getWorld().isRemote) {
+                // 3 or more muffler upgrades stop the active animation, so no need to re-render then
+                handleSync(RouterSyncMessage.ACTIVE, getUpgradeCount(UpgradeType.MUFFLER) < 3);
+            } else {
+                updateShownActive();
+            }
+        }
+    }
+
+    /**
+     * Server-side: sync the active state to clients, unless the visible state already changed too recently.
+     * A router which flips between active and idle every few ticks then only causes a client re-render every so
+     * often; the visible state catches up later (see {@link #scheduleNextUpdate()}).
+     */
+    private void updateShownActive() {
+        if (shownActive != active) {
+            long now = getWorld().getTotalWorldTime();
+            if (lastActiveSync < 0 || now - lastActiveSync >= ConfigHandler.router.activeStateDwellTicks) {
+                shownActive = active;
+                lastActiveSync = now;
+                handleSync(RouterSyncMessage.ACTIVE, true);
+            }
         }
     }
 
+    public byte getSidesOpen() {
+        return sidesOpen;
+    }
+
     public boolean isSideOpen(Module.RelativeDirection side) {
         return (sidesOpen & side.getMask()) != 0;
     }
@@ -467,15 +739,22 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
     private void setSidesOpen(byte sidesOpen) {
         if (this.sidesOpen != sidesOpen) {
             this.sidesOpen = sidesOpen;
-            handleSync(true);
+            handleSync(RouterSyncMessage.SIDES, true);
         }
     }
 
     public void setEcoMode(boolean newEco) {
         if (newEco != ecoMode) {
+            boolean server = getWorld() != null && !getWorld().isRemote;
+            if (server) {
+                catchUp();
+            }
             ecoMode = newEco;
             ecoCounter = ConfigHandler.router.ecoTimeout;
-            handleSync(false);
+            handleSync(RouterSyncMessage.ECO_MODE, false);
+            if (server) {
+                scheduleNextUpdate();
+            }
         }
     }
 
@@ -488,17 +767,52 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
     public void setCamouflage(IBlockState newCamouflage) {
         if (newCamouflage != camouflage) {
             this.camouflage = newCamouflage;
-            handleSync(true);
+            handleSync(SYNC_ALL, true);
         }
     }
 
-    private void handleSync(boolean renderUpdate) {
+    private void handleSync(int field, boolean renderUpdate) {
         // some tile entity field changed that the client needs to know about
-        // if on server, sync TE data to client; if on client, possibly mark the TE for re-render
+        // if on server, queue a sync of TE data to client; if on client, possibly mark the TE for re-render
         if (!getWorld().isRemote) {
-            getWorld().notifyBlockUpdate(pos, getWorld().getBlockState(pos), getWorld().getBlockState(pos), 3);
-        } else if (getWorld().isRemote && renderUpdate) {
-            getWorld().markBlockRangeForRenderUpdate(pos, pos);
+            dirtySyncFields |= field;
+            RouterSyncQueue.add(this);
+        } else if (renderUpdate) {
+            ModularRouters.proxy.markForRenderUpdate(pos);
+        }
+    }
+
+    /**
+     * Get (and clear) the set of fields which need to be synced to clients.
+     *
+     * @return a bitmask of RouterSyncMessage fields, or SYNC_ALL for a full update
+     */
+    public int takeDirtySyncFields() {
+        int res = dirtySyncFields;
+        dirtySyncFields = 0;
+        return res;
+    }
+
+    /**
+     * Client-side: process a partial sync message from the server.
+     *
+     * @param msg the message
+     */
+    public void processDeltaSync(RouterSyncMessage msg) {
+        if ((msg.getFields() & RouterSyncMessage.REDSTONE_MODE) != 0) {
+            setRedstoneBehaviour(msg.getRedstoneBehaviour());
+        }
+        if ((msg.getFields() & RouterSyncMessage.ACTIVE) != 0) {
+            setActive(msg.isActive());
+        }
+        if ((msg.getFields() & RouterSyncMessage.SIDES) != 0) {
+            setSidesOpen(msg.getSidesOpen());
+        }
+        if ((msg.getFields() & RouterSyncMessage.ECO_MODE) != 0) {
+            setEcoMode(msg.isEcoMode());
+        }
+        if ((msg.getFields() & RouterSyncMessage.REACTIVE) != 0) {
+            setReactiveMode(msg.isReactiveMode());
         }
     }
 
@@ -533,25 +847,93 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
 
     private void compileModules() {
         if ((recompileNeeded & COMPILE_MODULES) != 0) {
-            setHasPulsedModules(false);
-            byte newSidesOpen = 0;
-            for (CompiledModule cm : compiledModules) {
-                cm.cleanup(this);
-            }
-            compiledModules.clear();
+            // only recompile modules whose item has actually changed; the others keep their runtime state
             for (int i = 0; i < N_MODULE_SLOTS; i++) {
                 ItemStack stack = modulesHandler.getStackInSlot(i);
+                if (compiledModuleStacks[i] != null && ItemStack.areItemStacksEqual(stack, compiledModuleStacks[i])) {
+                    continue;
+                }
+                if (compiledModules[i] != null) {
+                    compiledModules[i].cleanup(this);
+                    compiledModules[i] = null;
+                }
                 Module m = ItemModule.getModule(stack);
                 if (m != null) {
-                    CompiledModule cms = m.compile(this, stack);
-                    compiledModules.add(cms);
-                    cms.onCompiled(this);
-                    newSidesOpen |= cms.getDirection().getMask();
+                    compiledModules[i] = m.compile(this, stack);
+                    compiledModules[i].onCompiled(this);
                 }
+                compiledModuleStacks[i] = stack.copy();
+            }
+
+            // recalculate the router-wide state which depends on the installed modules
+            byte newSidesOpen = 0;
+            boolean pulsed = false;
+            boolean emitter = false;
+            moduleCount = 0;
+            for (CompiledModule cm : compiledModules) {
+                if (cm != null) {
+                    moduleCount++;
+                    newSidesOpen |= cm.getDirection().getMask();
+                    pulsed |= cm.getRedstoneBehaviour() == RouterRedstoneBehaviour.PULSE;
+                    emitter |= cm instanceof CompiledDetectorModule;
+                }
+            }
+            setHasPulsedModules(pulsed);
+            if (emitter != canEmit) {
+                // e.g. one of two installed detector modules was removed
+                setAllowRedstoneEmission(emitter);
             }
-            moduleCount = compiledModules.size();
             setSidesOpen(newSidesOpen);
+            computeExecutionOrder();
+        }
+    }
+
+    /**
+     * Called when a compiled module has updated the NBT of its own module item in place (e.g. to store a
+     * refreshed target name).  The change is saved, but doesn't count as a new module item, so the module isn't
+     * recompiled and keeps its runtime state.  Players with the router GUI open see the change via the usual
+     * container sync.
+     *
+     * @param cm the compiled module
+     */
+    public void onModuleItemUpdated(CompiledModule cm) {
+        for (int i = 0; i < N_MODULE_SLOTS; i++) {
+            if (compiledModules[i] == cm) {
+                compiledModuleStacks[i] = modulesHandler.getStackInSlot(i).copy();
+                markDirty();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Work out the order in which installed modules are executed.  Normally this is slot order; but with module
+     * order optimisation enabled, modules which only fill the buffer are moved ahead of modules which only drain it,
+     * so an item can be moved in and out of the router in the same run.  Modules are only moved past other
+     * fill/drain modules: terminating modules, and modules which read the buffer or do anything else, act as
+     * fixed barriers.  Whether a module runs at all (redstone behaviour) doesn't depend on the order.
+     */
+    private void computeExecutionOrder() {
+        boolean optimise = ConfigHandler.router.optimiseModuleOrder;
+        List<CompiledModule> order = new ArrayList<>(moduleCount);
+        List<CompiledModule> drains = new ArrayList<>();
+        for (CompiledModule cm : compiledModules) {
+            if (cm == null) {
+                continue;
+            }
+            CompiledModule.BufferEffect effect = cm.getBufferEffect();
+            if (!optimise || cm.termination() || effect == CompiledModule.BufferEffect.READS || effect == CompiledModule.BufferEffect.MIXED) {
+                order.addAll(drains);
+                drains.clear();
+                order.add(cm);
+            } else if (effect == CompiledModule.BufferEffect.FILLS) {
+                order.add(cm);
+            } else {
+                drains.add(cm);
+            }
         }
+        order.addAll(drains);
+        executionOrder = order.toArray(new CompiledModule[0]);
     }
 
     private void compileUpgrades() {
@@ -572,6 +954,7 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
             }
 
             itemsPerTick = 1 << (Math.min(6, getUpgradeCount(UpgradeType.STACK)));
+            bulkPasses = Math.min(ConfigHandler.router.maxBulkPasses, getUpgradeCount(UpgradeType.BULK));
             tickRate = Math.max(ConfigHandler.router.hardMinTickRate,
                     ConfigHandler.router.baseTickRate - ConfigHandler.router.ticksPerUpgrade * getUpgradeCount(UpgradeType.SPEED));
             fluidTransferRate = Math.min(ConfigHandler.router.fluidMaxTransferRate,
@@ -613,6 +996,9 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
 
     public void recompileNeeded(int what) {
         recompileNeeded |= what;
+        if (getWorld() != null && !getWorld().isRemote) {
+            getScheduler().schedule(this, getWorld().getTotalWorldTime() + 1);
+        }
     }
 
     public int getItemsPerTick() {
@@ -691,13 +1077,27 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
         }
     }
 
-    public void checkForRedstonePulse() {
+    /**
+     * Called when a neighbouring block has changed.
+     */
+    public void onNeighbourChange() {
+        for (CompiledModule cm : compiledModules) {
+            if (cm != null) {
+                cm.onNeighbourChange(this);
+            }
+        }
+        wake();
+        checkForRedstonePulse();
+    }
+
+    private void checkForRedstonePulse() {
         redstonePower = getWorld().isBlockIndirectlyGettingPowered(pos);
         if (executing) {
             return;  // avoid recursion from executing module triggering more block updates
         }
         if (redstoneBehaviour == RouterRedstoneBehaviour.PULSE
                 || hasPulsedModules && redstoneBehaviour == RouterRedstoneBehaviour.ALWAYS) {
+            catchUp();
             if (redstonePower > lastPower && pulseCounter >= tickRate) {
                 allocateFluidTransfer(Math.min(pulseCounter, ConfigHandler.router.baseTickRate));
                 executeModules(true);
@@ -705,6 +1105,7 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
                 if (active) {
                     activeTimer = tickRate;
                 }
+                scheduleNextUpdate();
             }
             lastPower = redstonePower;
         }
@@ -819,10 +1220,93 @@ public class TileEntityItemRouter extends TileEntity implements ITickable, ICamo
         bufferHandler.setStackInSlot(0, stack);
     }
 
+    /**
+     * Stash some items which couldn't be inserted into the buffer (e.g. surplus drops from a broken block) in the
+     * router's overflow store, rather than dropping them in the world.  Overflow items are fed back into the buffer
+     * before the router's modules next run.
+     *
+     * @param stack the items to stash
+     * @return the items which didn't fit in the overflow store either (caller should drop these)
+     */
+    public ItemStack stashOverflow(ItemStack stack) {
+        if (stack.isEmpty()) {
+            return stack;
+        }
+        ItemStack remaining = stack.copy();
+        for (ItemStack held : overflow) {
+            if (ItemHandlerHelper.canItemStacksStack(held, remaining)) {
+                int n = Math.min(remaining.getCount(), held.getMaxStackSize() - held.getCount());
+                held.grow(n);
+                remaining.shrink(n);
+                if (remaining.isEmpty()) {
+                    break;
+                }
+            }
+        }
+        if (!remaining.isEmpty() && overflow.size() < ConfigHandler.router.maxOverflowStacks) {
+            overflow.add(remaining);
+            remaining = ItemStack.EMPTY;
+        }
+        if (remaining.getCount() != stack.getCount()) {
+            markDirty();
+        }
+        return remaining;
+    }
+
+    /**
+     * Get the number of item stacks held in the router's overflow store.  Modules which produce items
+     * without being asked (e.g. the Breaker) shouldn't do any more work while this is non-zero.
+     *
+     * @return the number of stacks
+     */
+    public int getOverflowDepth() {
+        return overflow.size();
+    }
+
+    public List<ItemStack> getOverflow() {
+        return Collections.unmodifiableList(overflow);
+    }
+
+    private void drainOverflow() {
+        boolean changed = false;
+        for (int i = 0; i < overflow.size(); ) {
+            ItemStack excess = insertBuffer(overflow.get(i));
+            if (excess.getCount() != overflow.get(i).getCount()) {
+                changed = true;
+            }
+            if (excess.isEmpty()) {
+                overflow.remove(i);
+            } else {
+                overflow.set(i++, excess);
+            }
+        }
+        if (changed) {
+            markDirty();
+        }
+    }
+
     public boolean getEcoMode() {
         return ecoMode;
     }
 
+    public boolean getReactiveMode() {
+        return reactive;
+    }
+
+    public void setReactiveMode(boolean newReactive) {
+        if (newReactive != reactive) {
+            boolean server = getWorld() != null && !getWorld().isRemote;
+            if (server) {
+                catchUp();
+            }
+            reactive = newReactive;
+            handleSync(RouterSyncMessage.REACTIVE, false);
+            if (server) {
+                scheduleNextUpdate();
+            }
+        }
+    }
+
     public void setHasPulsedModules(boolean hasPulsedModules) {
         this.hasPulsedModules = hasPulsedModules;
     }
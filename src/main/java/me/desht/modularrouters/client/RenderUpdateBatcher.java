@@ -0,0 +1,35 @@
+package me.desht.modularrouters.client;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Collects block positions which need re-rendering, and marks them all for re-render once, at the end of the
+ * client tick.  Several state changes to the same block within a tick only cause one render update.
+ */
+public class RenderUpdateBatcher {
+    private static final Set<BlockPos> pending = new HashSet<>();
+
+    public static void markForRenderUpdate(BlockPos pos) {
+        pending.add(pos);
+    }
+
+    @SubscribeEvent
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && !pending.isEmpty()) {
+            World world = Minecraft.getMinecraft().world;
+            if (world != null) {
+                for (BlockPos pos : pending) {
+                    world.markBlockRangeForRenderUpdate(pos, pos);
+                }
+            }
+            pending.clear();
+        }
+    }
+}
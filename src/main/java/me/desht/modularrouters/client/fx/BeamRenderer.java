@@ -0,0 +1,167 @@
+package me.desht.modularrouters.client.fx;
+
+import me.desht.modularrouters.config.ConfigHandler;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.ActiveRenderInfo;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.entity.Entity;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import org.lwjgl.opengl.GL11;
+
+import java.util.Random;
+
+/**
+ * Renders the sparkles which make up Sender & Puller particle beams.  Sparkles are not particle objects; they live in
+ * a fixed pool of primitive arrays which is reused as sparkles expire, and all live sparkles are drawn with a single
+ * buffer upload per frame.  The pool size is capped by {@link ConfigHandler.Misc#maxBeamSparkles}; when the pool
+ * is full, new sparkles are dropped.
+ */
+public class BeamRenderer {
+    private static final int MAX_AGE = 12;
+    private static final int FRAME_TICKS = 4;
+    private static final int FIRST_FRAME = 16;
+    private static final float TEX_SIZE = 0.0624375F * 2;
+
+    private static final Random rand = new Random();
+
+    private static int live;
+    private static double[] posX = new double[0];
+    private static double[] posY = new double[0];
+    private static double[] posZ = new double[0];
+    private static float[] red = new float[0];
+    private static float[] green = new float[0];
+    private static float[] blue = new float[0];
+    private static float[] scale = new float[0];
+    private static int[] age = new int[0];
+
+    /**
+     * Add a sparkle to the pool.
+     *
+     * @return false if the pool is full and the sparkle was dropped
+     */
+    static boolean addSparkle(double x, double y, double z, float r, float g, float b, float size) {
+        ensureCapacity();
+        if (live >= age.length) {
+            return false;
+        }
+        int i = live++;
+        posX[i] = x;
+        posY[i] = y;
+        posZ[i] = z;
+        red[i] = r;
+        green[i] = g;
+        blue[i] = b;
+        // same random scale as a vanilla particle
+        scale[i] = (rand.nextFloat() * 0.5F + 0.5F) * 2.0F * size;
+        age[i] = 0;
+        return true;
+    }
+
+    private static void ensureCapacity() {
+        int cap = ConfigHandler.misc.maxBeamSparkles;
+        if (cap != age.length) {
+            live = Math.min(live, cap);
+            posX = resize(posX, cap);
+            posY = resize(posY, cap);
+            posZ = resize(posZ, cap);
+            red = resize(red, cap);
+            green = resize(green, cap);
+            blue = resize(blue, cap);
+            scale = resize(scale, cap);
+            int[] newAge = new int[cap];
+            System.arraycopy(age, 0, newAge, 0, Math.min(age.length, cap));
+            age = newAge;
+        }
+    }
+
+    private static double[] resize(double[] a, int size) {
+        double[] res = new double[size];
+        System.arraycopy(a, 0, res, 0, Math.min(a.length, size));
+        return res;
+    }
+
+    private static float[] resize(float[] a, int size) {
+        float[] res = new float[size];
+        System.arraycopy(a, 0, res, 0, Math.min(a.length, size));
+        return res;
+    }
+
+    private static void tick() {
+        int i = 0;
+        while (i < live) {
+            if (++age[i] > MAX_AGE) {
+                // move the last live sparkle into this slot
+                int last = --live;
+                posX[i] = posX[last];
+                posY[i] = posY[last];
+                posZ[i] = posZ[last];
+                red[i] = red[last];
+                green[i] = green[last];
+                blue[i] = blue[last];
+                scale[i] = scale[last];
+                age[i] = age[last];
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Draw all live sparkles.  Expects the texture, blend & depth state to have been set up by the caller.
+     *
+     * @param tessellator the tessellator
+     * @param partialTicks partial ticks for the current frame
+     */
+    static void render(Tessellator tessellator, float partialTicks) {
+        if (live == 0) {
+            return;
+        }
+        Entity viewer = Minecraft.getMinecraft().getRenderViewEntity();
+        if (viewer == null) {
+            return;
+        }
+        double viewX = viewer.lastTickPosX + (viewer.posX - viewer.lastTickPosX) * partialTicks;
+        double viewY = viewer.lastTickPosY + (viewer.posY - viewer.lastTickPosY) * partialTicks;
+        double viewZ = viewer.lastTickPosZ + (viewer.posZ - viewer.lastTickPosZ) * partialTicks;
+        float rotX = ActiveRenderInfo.getRotationX();
+        float rotXZ = ActiveRenderInfo.getRotationXZ();
+        float rotZ = ActiveRenderInfo.getRotationZ();
+        float rotYZ = ActiveRenderInfo.getRotationYZ();
+        float rotXY = ActiveRenderInfo.getRotationXY();
+
+        BufferBuilder buffer = tessellator.getBuffer();
+        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_COLOR);
+        for (int i = 0; i < live; i++) {
+            int frame = FIRST_FRAME + age[i] / FRAME_TICKS;
+            float u0 = frame % 8 / 8.0F;
+            float u1 = u0 + TEX_SIZE;
+            float v0 = frame / 8 / 8.0F;
+            float v1 = v0 + TEX_SIZE;
+            float s = 0.1F * scale[i] * (MAX_AGE - age[i] + 1) / (float) MAX_AGE;
+            double x = posX[i] - viewX;
+            double y = posY[i] - viewY;
+            double z = posZ[i] - viewZ;
+            float r = red[i], g = green[i], b = blue[i];
+            buffer.pos(x - rotX * s - rotYZ * s, y - rotXZ * s, z - rotZ * s - rotXY * s).tex(u1, v1).color(r, g, b, 1F).endVertex();
+            buffer.pos(x - rotX * s + rotYZ * s, y + rotXZ * s, z - rotZ * s + rotXY * s).tex(u1, v0).color(r, g, b, 1F).endVertex();
+            buffer.pos(x + rotX * s + rotYZ * s, y + rotXZ * s, z + rotZ * s + rotXY * s).tex(u0, v0).color(r, g, b, 1F).endVertex();
+            buffer.pos(x + rotX * s - rotYZ * s, y - rotXZ * s, z + rotZ * s - rotXY * s).tex(u0, v1).color(r, g, b, 1F).endVertex();
+        }
+        tessellator.draw();
+    }
+
+    @SubscribeEvent
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            Minecraft mc = Minecraft.getMinecraft();
+            if (mc.world == null) {
+                live = 0;
+            } else if (!mc.isGamePaused()) {
+                tick();
+            }
+        }
+    }
+}
@@ -1,43 +1,61 @@
 package me.desht.modularrouters.client.fx;
 
-import me.desht.modularrouters.ModularRouters;
+import net.minecraft.client.Minecraft;
 import net.minecraft.world.World;
 
 import java.awt.*;
 
 public class ParticleBeam {
-	private static final int MAX_ITERS = 500;
+    private static final int MAX_ITERS = 500;
+    private static final double STEP = 0.05;
 
     public static void doParticleBeam(World world, Vector3 orig, Vector3 end) {
         doParticleBeam(world, orig, end, null, 0.5f);
     }
 
     public static void doParticleBeam(World world, Vector3 orig, Vector3 end, Color flatColor, float size) {
-		if (!world.isRemote)
-			return;
-
-		Vector3 diff = end.subtract(orig);
-		Vector3 movement = diff.normalize().multiply(0.05);
-		int iters = Math.min(MAX_ITERS, (int) (diff.mag() / movement.mag()));
-		float huePer = 1F / iters;
-		float hueSum = (float) Math.random();
-
-		Vector3 currentPos = orig;
-		for(int i = 0; i < iters; i++) {
-            Color color;
-            if (flatColor != null) {
-                color = flatColor;
-            } else {
-                float hue = i * huePer + hueSum;
-                color = Color.getHSBColor(hue, 1F, 1F);
+        doParticleBeam(world, orig.x, orig.y, orig.z, end.x, end.y, end.z, flatColor, size);
+    }
+
+    public static void doParticleBeam(World world, double x, double y, double z, double x2, double y2, double z2, Color flatColor, float size) {
+        if (!world.isRemote)
+            return;
+
+        double dx = x2 - x, dy = y2 - y, dz = z2 - z;
+        double len = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        int iters = Math.min(MAX_ITERS, (int) (len / STEP));
+        if (iters <= 0)
+            return;
+        double stepX = dx / len * STEP, stepY = dy / len * STEP, stepZ = dz / len * STEP;
+        float huePer = 1F / iters;
+        float hueSum = (float) Math.random();
+        float chance = particleChance();
+
+        float r = 0F, g = 0F, b = 0F;
+        if (flatColor != null) {
+            r = flatColor.getRed() / 255F;
+            g = flatColor.getGreen() / 255F;
+            b = flatColor.getBlue() / 255F;
+        }
+        for (int i = 0; i < iters; i++) {
+            if (chance < 1F && Math.random() >= chance)
+                continue;
+            if (flatColor == null) {
+                int rgb = Color.HSBtoRGB(i * huePer + hueSum, 1F, 1F);
+                r = (rgb >> 16 & 0xFF) / 255F;
+                g = (rgb >> 8 & 0xFF) / 255F;
+                b = (rgb & 0xFF) / 255F;
             }
-            float r = color.getRed() / 255F;
-            float g = color.getGreen() / 255F;
-            float b = color.getBlue() / 255F;
-            ModularRouters.proxy.setSparkleFXNoClip(true);
-            ModularRouters.proxy.sparkleFX(world, currentPos.x, currentPos.y, currentPos.z, r, g, b, 0.5F, 4);
-            ModularRouters.proxy.setSparkleFXNoClip(false);
-            currentPos = currentPos.add(movement);
+            if (!BeamRenderer.addSparkle(x + stepX * i, y + stepY * i, z + stepZ * i, r, g, b, 0.5F))
+                break;  // sparkle pool is full
         }
-	}
+    }
+
+    private static float particleChance() {
+        switch (Minecraft.getMinecraft().gameSettings.particleSetting) {
+            case 1: return 0.6F;
+            case 2: return 0.2F;
+            default: return 1F;
+        }
+    }
 }
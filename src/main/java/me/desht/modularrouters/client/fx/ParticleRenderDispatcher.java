@@ -11,7 +11,7 @@ public class ParticleRenderDispatcher {
     public static int sparkleFxCount = 0;
     public static int fakeSparkleFxCount = 0;
 
-    public static void dispatch() {
+    public static void dispatch(float partialTicks) {
         Tessellator tessellator = Tessellator.getInstance();
 
         Profiler profiler = Minecraft.getMinecraft().mcProfiler;
@@ -27,6 +27,10 @@ public class ParticleRenderDispatcher {
         FXSparkle.dispatchQueuedRenders(tessellator);
         profiler.endSection();
 
+        profiler.startSection("beams");
+        BeamRenderer.render(tessellator, partialTicks);
+        profiler.endSection();
+
         GlStateManager.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
         GlStateManager.alphaFunc(GL11.GL_GREATER, 0.1F);
         GlStateManager.disableBlend();
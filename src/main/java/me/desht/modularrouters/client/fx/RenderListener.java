@@ -10,7 +10,7 @@ public class RenderListener {
     public static void onRenderWorldLast(RenderWorldLastEvent event) {
         Profiler profiler = Minecraft.getMinecraft().mcProfiler;
         profiler.startSection("modularrouters-particles");
-        ParticleRenderDispatcher.dispatch();
+        ParticleRenderDispatcher.dispatch(event.getPartialTicks());
         profiler.endSection();
     }
 }
@@ -0,0 +1,158 @@
+package me.desht.modularrouters.command;
+
+import me.desht.modularrouters.item.module.ItemModule.ModuleType;
+import me.desht.modularrouters.logic.RouterProfiler;
+import me.desht.modularrouters.logic.RouterScheduler;
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentTranslation;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class CommandModularRouters extends CommandBase {
+    private static final String[] SUBCOMMANDS = new String[] { "stats", "profile" };
+    private static final String[] PROFILE_SUBCOMMANDS = new String[] { "start", "stop", "report", "dump" };
+    private static final String[] DUMP_FORMATS = new String[] { "csv", "json" };
+    private static final int DEFAULT_REPORT_SIZE = 10;
+
+    @Override
+    public String getName() {
+        return "mr";
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return Collections.singletonList("modularrouters");
+    }
+
+    @Override
+    public String getUsage(ICommandSender sender) {
+        return "chatText.command.usage";
+    }
+
+    @Override
+    public int getRequiredPermissionLevel() {
+        return 2;
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+        if (args.length < 1) {
+            throw new WrongUsageException(getUsage(sender));
+        }
+        switch (args[0]) {
+            case "stats":
+                showStats(sender);
+                break;
+            case "profile":
+                profile(server, sender, args);
+                break;
+            default:
+                throw new WrongUsageException(getUsage(sender));
+        }
+    }
+
+    private void showStats(ICommandSender sender) {
+        Map<Integer, RouterScheduler> schedulers = RouterScheduler.getSchedulers();
+        if (schedulers.isEmpty()) {
+            sender.sendMessage(new TextComponentTranslation("chatText.command.noRouters"));
+            return;
+        }
+        for (Map.Entry<Integer, RouterScheduler> entry : schedulers.entrySet()) {
+            RouterScheduler scheduler = entry.getValue();
+            sender.sendMessage(new TextComponentTranslation("chatText.command.stats", entry.getKey(),
+                    scheduler.getScheduledCount(), scheduler.getDeferredLastTick(), scheduler.getTotalDeferred(),
+                    scheduler.getOverflowDepth()));
+        }
+    }
+
+    private void profile(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+        if (args.length < 2) {
+            throw new WrongUsageException(getUsage(sender));
+        }
+        switch (args[1]) {
+            case "start":
+                RouterProfiler.start();
+                sender.sendMessage(new TextComponentTranslation("chatText.command.profile.started"));
+                break;
+            case "stop":
+                RouterProfiler.stop();
+                sender.sendMessage(new TextComponentTranslation("chatText.command.profile.stopped", RouterProfiler.getElapsed() / 1000.0));
+                break;
+            case "report":
+                int n = args.length > 2 ? parseInt(args[2], 1) : DEFAULT_REPORT_SIZE;
+                report(sender, n);
+                break;
+            case "dump":
+                String format = args.length > 2 ? args[2] : "csv";
+                dump(server, sender, format);
+                break;
+            default:
+                throw new WrongUsageException(getUsage(sender));
+        }
+    }
+
+    private void report(ICommandSender sender, int n) {
+        sender.sendMessage(new TextComponentTranslation("chatText.command.profile.header", RouterProfiler.getElapsed() / 1000.0));
+        for (Map.Entry<ModuleType, RouterProfiler.Stats> entry : RouterProfiler.getModuleStats().entrySet()) {
+            RouterProfiler.Stats stats = entry.getValue();
+            sender.sendMessage(new TextComponentTranslation("chatText.command.profile.module", entry.getKey(),
+                    stats.getCount(), micros(stats.getAverageNanos()), micros(stats.getMaxNanos()), millis(stats.getTotalNanos())));
+        }
+        for (RouterProfiler.RouterEntry entry : RouterProfiler.getTopRouters(n)) {
+            RouterProfiler.Stats stats = entry.getStats();
+            sender.sendMessage(new TextComponentTranslation("chatText.command.profile.router",
+                    entry.getDimension(), entry.getPos().getX(), entry.getPos().getY(), entry.getPos().getZ(),
+                    stats.getCount(), micros(stats.getAverageNanos()), micros(stats.getMaxNanos()), millis(stats.getTotalNanos())));
+        }
+    }
+
+    private void dump(MinecraftServer server, ICommandSender sender, String format) throws CommandException {
+        File dir = server.getEntityWorld().getSaveHandler().getWorldDirectory();
+        try {
+            File file;
+            switch (format) {
+                case "csv":
+                    file = RouterProfiler.dumpCSV(dir);
+                    break;
+                case "json":
+                    file = RouterProfiler.dumpJSON(dir);
+                    break;
+                default:
+                    throw new WrongUsageException(getUsage(sender));
+            }
+            sender.sendMessage(new TextComponentTranslation("chatText.command.profile.dumped", file.getPath()));
+        } catch (IOException e) {
+            throw new CommandException("chatText.command.profile.dumpFailed", e.getMessage());
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1000000.0);
+    }
+
+    @Override
+    public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos) {
+        if (args.length == 1) {
+            return getListOfStringsMatchingLastWord(args, SUBCOMMANDS);
+        } else if (args.length == 2 && args[0].equals("profile")) {
+            return getListOfStringsMatchingLastWord(args, PROFILE_SUBCOMMANDS);
+        } else if (args.length == 3 && args[0].equals("profile") && args[1].equals("dump")) {
+            return getListOfStringsMatchingLastWord(args, DUMP_FORMATS);
+        }
+        return Collections.emptyList();
+    }
+}
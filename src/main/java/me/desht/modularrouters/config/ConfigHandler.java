@@ -95,6 +95,11 @@ public class ConfigHandler {
         @Config.Comment("Should Puller modules show particle effects when pulling?")
         public boolean pullerParticles = true;
 
+        @Config.LangKey("gui.config.maxParticleBeamsPerSecond")
+        @Config.RangeInt(min = 0, max = 10000)
+        @Config.Comment("Max number of Sender/Puller particle beams sent to any one player per second")
+        public int maxParticleBeamsPerSecond = 60;
+
         @Config.LangKey("gui.config.placerParticles")
         @Config.Comment("Should Placer modules show particle effects when placing a block?")
         public boolean placerParticles = false;
@@ -115,6 +120,46 @@ public class ConfigHandler {
         @Config.Comment("Should Extruder (Mk1 & 2) modules play a sound when placing blocks?")
         public boolean extruderSound = true;
 
+        @Config.LangKey("gui.config.slotIndexMinSlots")
+        @Config.RangeInt(min = 0)
+        @Config.Comment("Modules pulling from inventories with at least this many slots keep an index of the inventory's contents, to avoid scanning every slot (0 = never)")
+        public int slotIndexMinSlots = 128;
+
+        @Config.LangKey("gui.config.slotIndexVerifyInterval")
+        @Config.RangeInt(min = 0)
+        @Config.Comment("Inventory contents indexes are patched as the module moves items, and only fully rescanned this often (in server ticks) to pick up changes made by anything else (0 = always rescan)")
+        public int slotIndexVerifyInterval = 20;
+
+        @Config.LangKey("gui.config.vacuumRescanInterval")
+        @Config.RangeInt(min = 0)
+        @Config.Comment("Vacuum modules with nothing in range only scan for items when one appears there; but also rescan this often (in server ticks) to catch items which drift in (0 = always scan)")
+        public int vacuumRescanInterval = 20;
+
+        @Config.LangKey("gui.config.sender3QueueStacks")
+        @Config.RangeInt(min = 0, max = 64)
+        @Config.Comment("Max number of item stacks a Sender Mk3 module may queue per destination while the destination is unloaded (0 = no queueing)")
+        public int sender3QueueStacks = 9;
+
+        @Config.LangKey("gui.config.sender3QueueExpiry")
+        @Config.RangeInt(min = 200)
+        @Config.Comment("If a Sender Mk3 destination queue hasn't been added to for this many server ticks, its destination chunk is loaded and the queued items are delivered there; anything which doesn't fit stays queued and is retried later")
+        public int sender3QueueExpiry = 6000;
+
+        @Config.LangKey("gui.config.censusVerifyInterval")
+        @Config.RangeInt(min = 0)
+        @Config.Comment("Modules with a Regulator Augment keep a count of their target inventory's contents, and only recount it fully this often (in server ticks); in between, changes made by anything other than the module itself go unnoticed (0 = always recount)")
+        public int censusVerifyInterval = 40;
+
+        @Config.LangKey("gui.config.breakerReprobeInterval")
+        @Config.RangeInt(min = 0)
+        @Config.Comment("Breaker modules stop trying to break a kind of block whose drops keep failing the module's filter, but try it again once in this many runs in case its drops are random (0 = always try)")
+        public int breakerReprobeInterval = 20;
+
+        @Config.LangKey("gui.config.areaMaxRange")
+        @Config.RangeInt(min = 1, max = 16)
+        @Config.Comment("Max range for Breaker and Placer modules; with Range Augments, these modules work on an area of blocks (a line, plane or cube, set in the module GUI) instead of just one")
+        public int areaMaxRange = 5;
+
         @Config.LangKey("gui.config.backgroundTint")
         @Config.Comment("Should the module GUI background be tinted like the module item colour?")
         public boolean backgroundTint = true;
@@ -164,6 +209,45 @@ public class ConfigHandler {
         @Config.RangeInt(min = 1)
         @Config.Comment("Fluid transfer rate increase per Fluid Transfer Upgrade")
         public int mBperFluidUpgrade = 10;
+
+        @Config.LangKey("gui.config.maxRouterUpdatesPerTick")
+        @Config.RangeInt(min = 0)
+        @Config.Comment("Max number of router updates processed per world per server tick; any more are deferred to the next tick (0 = no limit)")
+        public int maxRouterUpdatesPerTick = 0;
+
+        @Config.LangKey("gui.config.routerTickBudget")
+        @Config.RangeInt(min = 0)
+        @Config.Comment("Max time (in microseconds) spent on router updates per world per server tick; any more are deferred to the next tick (0 = no limit)")
+        public int routerTickBudget = 0;
+
+        @Config.LangKey("gui.config.maxBulkPasses")
+        @Config.RangeInt(min = 1, max = 64)
+        @Config.Comment("Max number of extra module passes a router may make per execution with Bulk Upgrades installed")
+        public int maxBulkPasses = 8;
+
+        @Config.LangKey("gui.config.activeStateDwellTicks")
+        @Config.RangeInt(min = 0, max = 200)
+        @Config.Comment("Min time (in server ticks) a router's visible active/idle state is held before it's updated again for clients")
+        public int activeStateDwellTicks = 20;
+
+        @Config.LangKey("gui.config.maxModuleBackoff")
+        @Config.RangeInt(min = 0, max = 64)
+        @Config.Comment("Max number of router runs a module may sit out after repeatedly doing nothing; reset when the buffer or a neighbouring block changes (0 = never back off)")
+        public int maxModuleBackoff = 8;
+
+        @Config.LangKey("gui.config.reactivePollInterval")
+        @Config.RangeInt(min = 20)
+        @Config.Comment("Tick interval for the safety poll of an idle router in reactive mode, which otherwise only runs when something nearby changes")
+        public int reactivePollInterval = 100;
+
+        @Config.LangKey("gui.config.optimiseModuleOrder")
+        @Config.Comment("Run modules which only fill a router's buffer (e.g. Pullers) before modules which only drain it (e.g. Senders), so items can pass through in a single run; takes effect when a router's modules are next changed")
+        public boolean optimiseModuleOrder = false;
+
+        @Config.LangKey("gui.config.maxOverflowStacks")
+        @Config.RangeInt(min = 0, max = 64)
+        @Config.Comment("Max number of item stacks a router holds back when block drops (e.g. from a Breaker Module) don't fit in its buffer; they're fed into the buffer as it empties, and anything beyond this is dropped in the world (0 = always drop)")
+        public int maxOverflowStacks = 9;
     }
 
     public static class Misc {
@@ -174,6 +258,11 @@ public class ConfigHandler {
         @Config.LangKey("gui.config.alwaysShowSettings")
         @Config.Comment("Show module/upgrade/filter settings in tooltip without needing to hold down Shift?")
         public boolean alwaysShowSettings = true;
+
+        @Config.LangKey("gui.config.maxBeamSparkles")
+        @Config.RangeInt(min = 0, max = 100000)
+        @Config.Comment("Max number of Sender/Puller particle beam sparkles shown at once (client-side)")
+        public int maxBeamSparkles = 4000;
     }
 
     @Mod.EventBusSubscriber
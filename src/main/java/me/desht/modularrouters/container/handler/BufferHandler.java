@@ -15,6 +15,7 @@ public class BufferHandler extends ItemStackHandler {
     private final TileEntityItemRouter router;
     private IFluidHandler fluidHandler;
     private boolean energyHandler;
+    private int changeCount;  // bumped whenever the buffer contents change
 
     public BufferHandler(TileEntityItemRouter router) {
         super(1);
@@ -23,7 +24,9 @@ public class BufferHandler extends ItemStackHandler {
 
     @Override
     public void onContentsChanged(int slot) {
+        changeCount++;
         router.markDirty();  // will also update comparator output
+        router.wake();
 
         ItemStack stack = getStackInSlot(0);
 
@@ -61,4 +64,14 @@ public class BufferHandler extends ItemStackHandler {
     public IFluidHandler getFluidHandler() {
         return fluidHandler;
     }
+
+    /**
+     * Get a counter which changes every time the buffer contents change.  Compare values from before and after
+     * some operation to find out if it touched the buffer.
+     *
+     * @return the change counter
+     */
+    public int getChangeCount() {
+        return changeCount;
+    }
 }
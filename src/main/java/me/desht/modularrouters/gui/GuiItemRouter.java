@@ -34,6 +34,7 @@ public class GuiItemRouter extends GuiContainerBase {
     public static final int BUTTON_WIDTH = 16;
     private static final int REDSTONE_BUTTON_ID = 1;
     private static final int ECO_BUTTON_ID = 2;
+    private static final int REACTIVE_BUTTON_ID = 3;
 
     public final TileEntityItemRouter router;
 
@@ -52,6 +53,8 @@ public class GuiItemRouter extends GuiContainerBase {
                 this.guiLeft + 152, this.guiTop + 10, BUTTON_WIDTH, BUTTON_HEIGHT, router.getRedstoneBehaviour()));
         buttonList.add(new RouterEcoButton(ECO_BUTTON_ID,
                 this.guiLeft + 132, this.guiTop + 10, BUTTON_WIDTH, BUTTON_HEIGHT, router.getEcoMode()));
+        buttonList.add(new RouterReactiveButton(REACTIVE_BUTTON_ID,
+                this.guiLeft + 8, this.guiTop + 10, BUTTON_WIDTH, BUTTON_HEIGHT, router.getReactiveMode()));
     }
 
     @Override
@@ -68,6 +71,13 @@ public class GuiItemRouter extends GuiContainerBase {
                 reb.toggle();
                 router.setEcoMode(reb.isToggled());
                 ModularRouters.network.sendToServer(new RouterSettingsMessage(router));
+                break;
+            case REACTIVE_BUTTON_ID:
+                RouterReactiveButton rab = (RouterReactiveButton) button;
+                rab.toggle();
+                router.setReactiveMode(rab.isToggled());
+                ModularRouters.network.sendToServer(new RouterSettingsMessage(router));
+                break;
             default:
                 break;
         }
@@ -140,4 +150,27 @@ public class GuiItemRouter extends GuiContainerBase {
             return Arrays.asList(s.split("\\\\n"));
         }
     }
+
+    private static class RouterReactiveButton extends TexturedToggleButton {
+        RouterReactiveButton(int buttonId, int x, int y, int width, int height, boolean initialVal) {
+            super(buttonId, x, y, width, height);
+            setToggled(initialVal);
+        }
+
+        @Override
+        protected int getTextureX() {
+            return isToggled() ? 208 : 192;
+        }
+
+        @Override
+        protected int getTextureY() {
+            return 16;
+        }
+
+        @Override
+        public List<String> getTooltip() {
+            String s = I18n.format("guiText.tooltip.reactive." + isToggled(), ConfigHandler.router.reactivePollInterval / 20.f);
+            return Arrays.asList(s.split("\\\\n"));
+        }
+    }
 }
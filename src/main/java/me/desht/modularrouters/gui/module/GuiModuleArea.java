@@ -0,0 +1,81 @@
+package me.desht.modularrouters.gui.module;
+
+import me.desht.modularrouters.container.ContainerModule;
+import me.desht.modularrouters.gui.widgets.button.ItemStackCyclerButton;
+import me.desht.modularrouters.logic.compiled.ModuleArea;
+import me.desht.modularrouters.logic.compiled.ModuleArea.Shape;
+import net.minecraft.client.gui.GuiButton;
+import net.minecraft.client.gui.GuiScreen;
+import net.minecraft.client.resources.I18n;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.EnumHand;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Collections;
+import java.util.List;
+
+public class GuiModuleArea extends GuiModule {
+    private static final ItemStack lineStack = new ItemStack(Items.STICK);
+    private static final ItemStack planeStack = new ItemStack(Blocks.CARPET);
+    private static final ItemStack cubeStack = new ItemStack(Blocks.STONE);
+
+    private static final int SHAPE_BUTTON_ID = GuiModule.EXTRA_BUTTON_BASE;
+
+    private Shape shape;
+
+    public GuiModuleArea(ContainerModule containerItem, EnumHand hand) {
+        this(containerItem, null, -1, hand);
+    }
+
+    public GuiModuleArea(ContainerModule containerItem, BlockPos routerPos, Integer slotIndex, EnumHand hand) {
+        super(containerItem, routerPos, slotIndex, hand);
+
+        shape = ModuleArea.getShape(moduleItemStack);
+    }
+
+    @Override
+    public void initGui() {
+        super.initGui();
+
+        ItemStack[] stacks = new ItemStack[] { lineStack, planeStack, cubeStack };
+        buttonList.add(new ShapeButton(SHAPE_BUTTON_ID, guiLeft + 169, guiTop + 32, 16, 16, true, stacks, shape));
+    }
+
+    @Override
+    protected void drawGuiContainerBackgroundLayer(float partialTicks, int mouseX, int mouseY) {
+        super.drawGuiContainerBackgroundLayer(partialTicks, mouseX, mouseY);
+
+        this.drawTexturedModalRect(guiLeft + 167, guiTop + 31, BUTTON_XY.x, BUTTON_XY.y, 18, 18);  // shape "button" background
+    }
+
+    @Override
+    protected void actionPerformed(GuiButton button) {
+        if (button.id == SHAPE_BUTTON_ID) {
+            shape = ((ShapeButton) button).cycle(!GuiScreen.isShiftKeyDown());
+            sendModuleSettingsToServer();
+        } else {
+            super.actionPerformed(button);
+        }
+    }
+
+    @Override
+    protected NBTTagCompound buildMessageData() {
+        NBTTagCompound compound = super.buildMessageData();
+        compound.setInteger(ModuleArea.NBT_SHAPE, shape.ordinal());
+        return compound;
+    }
+
+    private static class ShapeButton extends ItemStackCyclerButton<Shape> {
+        ShapeButton(int buttonId, int x, int y, int width, int height, boolean flat, ItemStack[] stacks, Shape initialVal) {
+            super(buttonId, x, y, width, height, flat, stacks, initialVal);
+        }
+
+        @Override
+        public List<String> getTooltip() {
+            return Collections.singletonList(I18n.format("itemText.misc.areaShape", I18n.format("guiText.label.areaShape." + getState())));
+        }
+    }
+}
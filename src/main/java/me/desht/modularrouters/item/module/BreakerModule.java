@@ -1,9 +1,14 @@
 package me.desht.modularrouters.item.module;
 
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
+import me.desht.modularrouters.config.ConfigHandler;
+import me.desht.modularrouters.gui.module.GuiModule;
+import me.desht.modularrouters.gui.module.GuiModuleArea;
 import me.desht.modularrouters.logic.compiled.CompiledBreakerModule;
 import me.desht.modularrouters.logic.compiled.CompiledModule;
+import me.desht.modularrouters.logic.compiled.ModuleArea;
 import me.desht.modularrouters.util.MiscUtil;
+import net.minecraft.client.resources.I18n;
 import net.minecraft.client.util.ITooltipFlag;
 import net.minecraft.enchantment.Enchantment;
 import net.minecraft.enchantment.EnchantmentHelper;
@@ -14,7 +19,7 @@ import java.awt.*;
 import java.util.List;
 import java.util.Map;
 
-public class BreakerModule extends Module {
+public class BreakerModule extends Module implements IRangedModule {
     @Override
     public void addUsageInformation(ItemStack itemstack, World player, List<String> list, ITooltipFlag advanced) {
         super.addUsageInformation(itemstack, player, list, advanced);
@@ -24,6 +29,29 @@ public class BreakerModule extends Module {
         }
     }
 
+    @Override
+    public void addExtraInformation(ItemStack itemstack, World player, List<String> list, ITooltipFlag advanced) {
+        super.addExtraInformation(itemstack, player, list, advanced);
+        if (getCurrentRange(itemstack) > 1) {
+            list.add(I18n.format("itemText.misc.areaShape", I18n.format("guiText.label.areaShape." + ModuleArea.getShape(itemstack))));
+        }
+    }
+
+    @Override
+    public int getBaseRange() {
+        return 1;
+    }
+
+    @Override
+    public int getHardMaxRange() {
+        return ConfigHandler.module.areaMaxRange;
+    }
+
+    @Override
+    public Class<? extends GuiModule> getGuiHandler() {
+        return GuiModuleArea.class;
+    }
+
     @Override
     public CompiledModule compile(TileEntityItemRouter router, ItemStack stack) {
         return new CompiledBreakerModule(router, stack);
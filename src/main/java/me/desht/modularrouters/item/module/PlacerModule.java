@@ -1,13 +1,44 @@
 package me.desht.modularrouters.item.module;
 
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
+import me.desht.modularrouters.config.ConfigHandler;
+import me.desht.modularrouters.gui.module.GuiModule;
+import me.desht.modularrouters.gui.module.GuiModuleArea;
 import me.desht.modularrouters.logic.compiled.CompiledModule;
 import me.desht.modularrouters.logic.compiled.CompiledPlacerModule;
+import me.desht.modularrouters.logic.compiled.ModuleArea;
+import net.minecraft.client.resources.I18n;
+import net.minecraft.client.util.ITooltipFlag;
 import net.minecraft.item.ItemStack;
+import net.minecraft.world.World;
 
 import java.awt.*;
+import java.util.List;
+
+public class PlacerModule extends Module implements IRangedModule {
+    @Override
+    public void addExtraInformation(ItemStack itemstack, World player, List<String> list, ITooltipFlag advanced) {
+        super.addExtraInformation(itemstack, player, list, advanced);
+        if (getCurrentRange(itemstack) > 1) {
+            list.add(I18n.format("itemText.misc.areaShape", I18n.format("guiText.label.areaShape." + ModuleArea.getShape(itemstack))));
+        }
+    }
+
+    @Override
+    public int getBaseRange() {
+        return 1;
+    }
+
+    @Override
+    public int getHardMaxRange() {
+        return ConfigHandler.module.areaMaxRange;
+    }
+
+    @Override
+    public Class<? extends GuiModule> getGuiHandler() {
+        return GuiModuleArea.class;
+    }
 
-public class PlacerModule extends Module {
     @Override
     public CompiledModule compile(TileEntityItemRouter router, ItemStack stack) {
         return new CompiledPlacerModule(router, stack);
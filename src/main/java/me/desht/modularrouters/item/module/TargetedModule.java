@@ -128,6 +128,19 @@ public abstract class TargetedModule extends Module {
         stack.setTagCompound(compound);
     }
 
+    /**
+     * Update the target block name stored in the module item's NBT, leaving the rest of the target unchanged.
+     *
+     * @param stack the module item
+     * @param invName the new block name
+     */
+    public static void updateTargetName(ItemStack stack, String invName) {
+        NBTTagCompound compound = stack.getTagCompound();
+        if (compound != null && compound.getTagId(NBT_TARGET) == Constants.NBT.TAG_COMPOUND) {
+            compound.getCompoundTag(NBT_TARGET).setString("InvName", invName);
+        }
+    }
+
     /**
      * Retrieve targeting information from a module itemstack.  Can be called server or client-side.
      *
@@ -0,0 +1,17 @@
+package me.desht.modularrouters.item.upgrade;
+
+import me.desht.modularrouters.config.ConfigHandler;
+
+import java.awt.*;
+
+public class BulkUpgrade extends Upgrade {
+    @Override
+    public Object[] getExtraUsageParams() {
+        return new Object[] { ConfigHandler.router.maxBulkPasses };
+    }
+
+    @Override
+    public Color getItemTint() {
+        return new Color(255, 170, 0);
+    }
+}
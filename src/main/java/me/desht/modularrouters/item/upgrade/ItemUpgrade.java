@@ -21,7 +21,8 @@ public class ItemUpgrade extends ItemSubTypes<ItemUpgrade.UpgradeType> {
         SYNC,
         FLUID,
         MUFFLER,
-        BLAST;
+        BLAST,
+        BULK;
 
         public static UpgradeType getType(ItemStack stack) {
             return stack.getItem() instanceof ItemUpgrade ? values()[stack.getItemDamage()] : null;
@@ -39,6 +40,7 @@ public class ItemUpgrade extends ItemSubTypes<ItemUpgrade.UpgradeType> {
         register(UpgradeType.FLUID, new FluidUpgrade());
         register(UpgradeType.MUFFLER, new MufflerUpgrade());
         register(UpgradeType.BLAST, new BlastUpgrade());
+        register(UpgradeType.BULK, new BulkUpgrade());
     }
 
     @Override
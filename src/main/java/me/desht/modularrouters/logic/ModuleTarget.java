@@ -15,6 +15,10 @@ public class ModuleTarget {
     public final EnumFacing face;
     public final String invName;
 
+    // cached validation state, kept up to date server-side by TargetValidator for watched targets
+    private boolean chunkLoaded;
+    private String blockName;
+
     public ModuleTarget(int dimId, BlockPos pos, EnumFacing face, String invName) {
         this.dimId = dimId;
         this.pos = pos;
@@ -47,6 +51,33 @@ public class ModuleTarget {
         return new ModuleTarget(nbt.getInteger("Dimension"), pos, face, nbt.getString("InvName"));
     }
 
+    /**
+     * Check if the target's chunk is loaded.  Only meaningful for targets being watched by {@link TargetValidator}.
+     *
+     * @return true if the target's chunk was loaded when last checked
+     */
+    public boolean isChunkLoaded() {
+        return chunkLoaded;
+    }
+
+    void setChunkLoaded(boolean chunkLoaded) {
+        this.chunkLoaded = chunkLoaded;
+    }
+
+    /**
+     * Get the current name of the target block, as last seen by {@link TargetValidator}; falls back to the
+     * name stored when the target was set.
+     *
+     * @return the target block's name
+     */
+    public String getBlockName() {
+        return blockName == null ? invName : blockName;
+    }
+
+    void setBlockName(String blockName) {
+        this.blockName = blockName;
+    }
+
     @Override
     public String toString() {
         return MiscUtil.locToString(dimId, pos) + " " + face + " [" + invName + "]";
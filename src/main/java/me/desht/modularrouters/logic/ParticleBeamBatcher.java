@@ -0,0 +1,107 @@
+package me.desht.modularrouters.logic;
+
+import me.desht.modularrouters.ModularRouters;
+import me.desht.modularrouters.config.ConfigHandler;
+import me.desht.modularrouters.network.ParticleBeamBatchMessage;
+import me.desht.modularrouters.network.ParticleBeamBatchMessage.Beam;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.world.World;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Collects the particle beams queued by modules during a server tick, and at the end of the tick sends each
+ * nearby player a single {@link ParticleBeamBatchMessage} holding all the beams they should see.  Duplicate beams
+ * (same blocks, same colour) within a tick are only sent once, and each player has a budget of beams per second
+ * (see {@link ConfigHandler.Module#maxParticleBeamsPerSecond}); beams over budget are simply dropped.
+ */
+public class ParticleBeamBatcher {
+    private static final double RANGE_SQ = 32 * 32;
+
+    private static final Map<Integer, Set<Beam>> pending = new HashMap<>();
+    private static final Map<EntityPlayerMP, Allowance> allowances = new WeakHashMap<>();
+    private static long serverTicks;
+
+    /**
+     * Queue a particle beam to be sent to all players near its start point at the end of this tick.
+     *
+     * @param world the (server) world
+     * @param color beam colour, or null for the default colour
+     * @param size beam size (0.0 - 1.0)
+     */
+    public static void queue(World world, double x, double y, double z, double x2, double y2, double z2, Color color, float size) {
+        pending.computeIfAbsent(world.provider.getDimension(), k -> new LinkedHashSet<>())
+                .add(new Beam(x, y, z, x2, y2, z2, color, size));
+    }
+
+    private static void flush() {
+        int perSecond = ConfigHandler.module.maxParticleBeamsPerSecond;
+        for (Map.Entry<Integer, Set<Beam>> entry : pending.entrySet()) {
+            World world = DimensionManager.getWorld(entry.getKey());
+            if (world == null) {
+                continue;
+            }
+            for (EntityPlayerMP player : world.getPlayers(EntityPlayerMP.class, p -> true)) {
+                Allowance allowance = allowances.computeIfAbsent(player, k -> new Allowance(perSecond));
+                allowance.refill(perSecond, serverTicks);
+                List<Beam> beams = new ArrayList<>();
+                for (Beam beam : entry.getValue()) {
+                    if (allowance.tokens < 1f) {
+                        break;
+                    }
+                    if (beam.distanceSq(player.posX, player.posY, player.posZ) <= RANGE_SQ) {
+                        beams.add(beam);
+                        allowance.tokens--;
+                    }
+                }
+                if (!beams.isEmpty()) {
+                    ModularRouters.network.sendTo(new ParticleBeamBatchMessage(beams), player);
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    private static class Allowance {
+        private float tokens;
+        private long lastRefill;
+
+        Allowance(int perSecond) {
+            tokens = perSecond;
+            lastRefill = serverTicks;
+        }
+
+        void refill(int perSecond, long now) {
+            // never hold more than one second's worth of beams
+            tokens = Math.min(perSecond, tokens + (now - lastRefill) * perSecond / 20f);
+            lastRefill = now;
+        }
+    }
+
+    @Mod.EventBusSubscriber
+    public static class Handler {
+        @SubscribeEvent
+        public static void onServerTick(TickEvent.ServerTickEvent event) {
+            if (event.phase == TickEvent.Phase.END) {
+                serverTicks++;
+                if (!pending.isEmpty()) {
+                    flush();
+                }
+            }
+        }
+
+        @SubscribeEvent
+        public static void onWorldUnload(WorldEvent.Unload event) {
+            if (!event.getWorld().isRemote) {
+                pending.remove(event.getWorld().provider.getDimension());
+            }
+        }
+    }
+}
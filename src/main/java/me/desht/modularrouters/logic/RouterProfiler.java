@@ -0,0 +1,222 @@
+package me.desht.modularrouters.logic;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import me.desht.modularrouters.block.tile.TileEntityItemRouter;
+import me.desht.modularrouters.item.module.ItemModule.ModuleType;
+import net.minecraft.util.math.BlockPos;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Simple execution time profiler for routers and modules.  When not enabled (the default), the only
+ * overhead is a boolean check per router execution.
+ */
+public class RouterProfiler {
+    // histogram buckets are powers of 2 in microseconds: <1us, <2us, <4us ... <1024us, and anything longer
+    public static final int HISTOGRAM_BUCKETS = 12;
+
+    private static boolean enabled = false;
+    private static long startTime;
+    private static long stopTime;
+    private static final Map<Integer, Map<BlockPos, Stats>> routerStats = new HashMap<>();
+    private static final Map<ModuleType, Stats> moduleStats = new EnumMap<>(ModuleType.class);
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void start() {
+        routerStats.clear();
+        moduleStats.clear();
+        startTime = System.currentTimeMillis();
+        stopTime = 0L;
+        enabled = true;
+    }
+
+    public static void stop() {
+        if (enabled) {
+            stopTime = System.currentTimeMillis();
+            enabled = false;
+        }
+    }
+
+    /**
+     * @return the duration of the current (or last) profiling run, in milliseconds
+     */
+    public static long getElapsed() {
+        return startTime == 0L ? 0L : (enabled ? System.currentTimeMillis() : stopTime) - startTime;
+    }
+
+    public static void recordRouter(TileEntityItemRouter router, long nanos) {
+        routerStats.computeIfAbsent(router.getWorld().provider.getDimension(), k -> new HashMap<>())
+                .computeIfAbsent(router.getPos(), k -> new Stats())
+                .add(nanos);
+    }
+
+    public static void recordModule(ModuleType type, long nanos) {
+        moduleStats.computeIfAbsent(type, k -> new Stats()).add(nanos);
+    }
+
+    /**
+     * Get the routers which have used the most time so far.
+     *
+     * @param n max number of routers to return
+     * @return a list of (dimension, position, stats) entries, most expensive first
+     */
+    public static List<RouterEntry> getTopRouters(int n) {
+        return allRouters().stream()
+                .sorted(Comparator.comparingLong((RouterEntry e) -> e.stats.totalNanos).reversed())
+                .limit(n)
+                .collect(Collectors.toList());
+    }
+
+    public static Map<ModuleType, Stats> getModuleStats() {
+        return Collections.unmodifiableMap(moduleStats);
+    }
+
+    private static List<RouterEntry> allRouters() {
+        List<RouterEntry> res = new ArrayList<>();
+        for (Map.Entry<Integer, Map<BlockPos, Stats>> dimEntry : routerStats.entrySet()) {
+            for (Map.Entry<BlockPos, Stats> entry : dimEntry.getValue().entrySet()) {
+                res.add(new RouterEntry(dimEntry.getKey(), entry.getKey(), entry.getValue()));
+            }
+        }
+        return res;
+    }
+
+    public static File dumpCSV(File dir) throws IOException {
+        File file = new File(dir, "modularrouters-profile.csv");
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            StringBuilder header = new StringBuilder("kind,key,count,total_ns,max_ns");
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                header.append(",").append(bucketLabel(i));
+            }
+            out.println(header);
+            for (Map.Entry<ModuleType, Stats> entry : moduleStats.entrySet()) {
+                out.println("module," + entry.getKey() + "," + entry.getValue().toCSV());
+            }
+            for (RouterEntry entry : allRouters()) {
+                out.println("router," + entry.getKey() + "," + entry.stats.toCSV());
+            }
+        }
+        return file;
+    }
+
+    public static File dumpJSON(File dir) throws IOException {
+        File file = new File(dir, "modularrouters-profile.json");
+        JsonObject root = new JsonObject();
+        root.addProperty("elapsed_ms", getElapsed());
+        JsonObject modules = new JsonObject();
+        for (Map.Entry<ModuleType, Stats> entry : moduleStats.entrySet()) {
+            modules.add(entry.getKey().toString(), entry.getValue().toJson());
+        }
+        root.add("modules", modules);
+        JsonArray routers = new JsonArray();
+        for (RouterEntry entry : allRouters()) {
+            JsonObject obj = entry.stats.toJson();
+            obj.addProperty("dim", entry.dimension);
+            obj.addProperty("x", entry.pos.getX());
+            obj.addProperty("y", entry.pos.getY());
+            obj.addProperty("z", entry.pos.getZ());
+            routers.add(obj);
+        }
+        root.add("routers", routers);
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            out.println(new GsonBuilder().setPrettyPrinting().create().toJson(root));
+        }
+        return file;
+    }
+
+    private static String bucketLabel(int bucket) {
+        return bucket < HISTOGRAM_BUCKETS - 1 ? "lt_" + (1 << bucket) + "us" : "ge_" + (1 << (bucket - 1)) + "us";
+    }
+
+    public static class Stats {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+
+        void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            long micros = nanos / 1000;
+            int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+            histogram[Math.min(bucket, HISTOGRAM_BUCKETS - 1)]++;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getAverageNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        private String toCSV() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(count).append(",").append(totalNanos).append(",").append(maxNanos);
+            for (long h : histogram) {
+                sb.append(",").append(h);
+            }
+            return sb.toString();
+        }
+
+        private JsonObject toJson() {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("count", count);
+            obj.addProperty("total_ns", totalNanos);
+            obj.addProperty("max_ns", maxNanos);
+            JsonObject hist = new JsonObject();
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                hist.addProperty(bucketLabel(i), histogram[i]);
+            }
+            obj.add("histogram", hist);
+            return obj;
+        }
+    }
+
+    public static class RouterEntry {
+        private final int dimension;
+        private final BlockPos pos;
+        private final Stats stats;
+
+        RouterEntry(int dimension, BlockPos pos, Stats stats) {
+            this.dimension = dimension;
+            this.pos = pos;
+            this.stats = stats;
+        }
+
+        public int getDimension() {
+            return dimension;
+        }
+
+        public BlockPos getPos() {
+            return pos;
+        }
+
+        public Stats getStats() {
+            return stats;
+        }
+
+        String getKey() {
+            return dimension + ":" + pos.getX() + ":" + pos.getY() + ":" + pos.getZ();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package me.desht.modularrouters.logic;
+
+import me.desht.modularrouters.block.tile.TileEntityItemRouter;
+import me.desht.modularrouters.config.ConfigHandler;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.relauncher.Side;
+
+import java.util.*;
+
+/**
+ * Drives all the routers in a (server) world from a single world tick handler, instead of having every
+ * router tick every game tick.  Routers are kept in buckets keyed by the world time at which they next
+ * need to do something, so routers which have nothing to do until their next execution cost nothing
+ * in the meantime.
+ * <p>
+ * Router processing per tick can be limited by count and/or time (see {@link ConfigHandler.Router}); routers
+ * which miss out are deferred to the next tick, where they're processed first, in the order they were deferred.
+ */
+public class RouterScheduler {
+    private static final Map<Integer, RouterScheduler> schedulers = new HashMap<>();
+
+    private final TreeMap<Long, List<TileEntityItemRouter>> buckets = new TreeMap<>();
+    private final Map<TileEntityItemRouter, Long> due = new HashMap<>();
+    private final Set<TileEntityItemRouter> deferred = new LinkedHashSet<>();
+    private long currentTick = Long.MIN_VALUE;
+
+    private int deferredLastTick;
+    private long totalDeferred;
+
+    private RouterScheduler() {
+    }
+
+    public static RouterScheduler getScheduler(World world) {
+        return schedulers.computeIfAbsent(world.provider.getDimension(), k -> new RouterScheduler());
+    }
+
+    public static Map<Integer, RouterScheduler> getSchedulers() {
+        return Collections.unmodifiableMap(schedulers);
+    }
+
+    /**
+     * Ensure the given router is processed no later than the given world time.  If the router is already
+     * due to be processed earlier, this has no effect; the router will reschedule itself when processed.
+     *
+     * @param router the router
+     * @param when total world time at which the router should be processed
+     */
+    public void schedule(TileEntityItemRouter router, long when) {
+        if (deferred.contains(router)) {
+            return;  // will be processed as soon as the budget allows anyway
+        }
+        if (when <= currentTick) {
+            // never add work to the tick we're currently processing
+            when = currentTick + 1;
+        }
+        Long prev = due.get(router);
+        if (prev != null && prev <= when) {
+            return;
+        }
+        due.put(router, when);
+        buckets.computeIfAbsent(when, k -> new ArrayList<>()).add(router);
+    }
+
+    /**
+     * Remove the given router from the schedule, e.g. when it's been removed from the world or unloaded.
+     *
+     * @param router the router
+     */
+    public void unschedule(TileEntityItemRouter router) {
+        // any bucket entry left behind is discarded when its bucket comes up
+        due.remove(router);
+        deferred.remove(router);
+    }
+
+    public int getScheduledCount() {
+        return due.size() + deferred.size();
+    }
+
+    /**
+     * @return the total number of item stacks held in the overflow stores of the scheduled routers
+     */
+    public int getOverflowDepth() {
+        int depth = 0;
+        for (TileEntityItemRouter router : due.keySet()) {
+            depth += router.getOverflowDepth();
+        }
+        for (TileEntityItemRouter router : deferred) {
+            depth += router.getOverflowDepth();
+        }
+        return depth;
+    }
+
+    /**
+     * @return the number of router updates which were deferred to a later tick at the end of the last tick
+     */
+    public int getDeferredLastTick() {
+        return deferredLastTick;
+    }
+
+    /**
+     * @return the total number of router updates deferred to a later tick since this world was loaded
+     */
+    public long getTotalDeferred() {
+        return totalDeferred;
+    }
+
+    private void tick(long now) {
+        currentTick = now;
+        Budget budget = new Budget();
+
+        // routers deferred from earlier ticks go first
+        // (a fresh iterator each time, since a router update could cause other routers to be unscheduled)
+        while (!deferred.isEmpty() && !budget.exhausted()) {
+            TileEntityItemRouter router = deferred.iterator().next();
+            deferred.remove(router);
+            if (!router.isInvalid()) {
+                router.scheduledUpdate(now);
+                budget.used++;
+            }
+        }
+
+        while (!buckets.isEmpty() && buckets.firstKey() <= now) {
+            Map.Entry<Long, List<TileEntityItemRouter>> entry = buckets.pollFirstEntry();
+            for (TileEntityItemRouter router : entry.getValue()) {
+                Long when = due.get(router);
+                if (when == null || when.longValue() != entry.getKey()) {
+                    continue;  // stale entry; the router has been rescheduled or removed
+                }
+                due.remove(router);
+                if (router.isInvalid()) {
+                    continue;
+                }
+                if (budget.exhausted()) {
+                    if (deferred.add(router)) {
+                        totalDeferred++;  // counted once, however many ticks it then waits
+                    }
+                } else {
+                    router.scheduledUpdate(now);
+                    budget.used++;
+                }
+            }
+        }
+
+        deferredLastTick = deferred.size();
+    }
+
+    private static class Budget {
+        private final int maxUpdates = ConfigHandler.router.maxRouterUpdatesPerTick;
+        private final long deadline = ConfigHandler.router.routerTickBudget > 0 ?
+                System.nanoTime() + ConfigHandler.router.routerTickBudget * 1000L : 0L;
+        private int used;
+
+        boolean exhausted() {
+            return maxUpdates > 0 && used >= maxUpdates || deadline != 0L && System.nanoTime() >= deadline;
+        }
+    }
+
+    @Mod.EventBusSubscriber
+    public static class Handler {
+        @SubscribeEvent
+        public static void onWorldTick(TickEvent.WorldTickEvent event) {
+            if (event.side == Side.SERVER && event.phase == TickEvent.Phase.END) {
+                RouterScheduler scheduler = schedulers.get(event.world.provider.getDimension());
+                if (scheduler != null) {
+                    scheduler.tick(event.world.getTotalWorldTime());
+                }
+            }
+        }
+
+        @SubscribeEvent
+        public static void onWorldUnload(WorldEvent.Unload event) {
+            if (!event.getWorld().isRemote) {
+                schedulers.remove(event.getWorld().provider.getDimension());
+            }
+        }
+    }
+}
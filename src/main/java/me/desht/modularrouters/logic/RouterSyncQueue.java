@@ -0,0 +1,55 @@
+package me.desht.modularrouters.logic;
+
+import me.desht.modularrouters.ModularRouters;
+import me.desht.modularrouters.block.tile.TileEntityItemRouter;
+import me.desht.modularrouters.network.RouterSyncMessage;
+import net.minecraft.server.management.PlayerChunkMapEntry;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Collects routers whose client-visible state has changed, and syncs each of them at most once per server tick,
+ * at the end of the tick.  Routers where only a few frequently-changing fields have changed send just those
+ * fields (see {@link RouterSyncMessage}); otherwise a full tile entity update is sent.
+ */
+public class RouterSyncQueue {
+    private static final Set<TileEntityItemRouter> pending = new LinkedHashSet<>();
+
+    public static void add(TileEntityItemRouter router) {
+        pending.add(router);
+    }
+
+    private static void flush() {
+        for (TileEntityItemRouter router : pending) {
+            int fields = router.takeDirtySyncFields();
+            if (router.isInvalid() || fields == 0) {
+                continue;
+            }
+            WorldServer world = (WorldServer) router.getWorld();
+            if (fields == TileEntityItemRouter.SYNC_ALL) {
+                world.notifyBlockUpdate(router.getPos(), world.getBlockState(router.getPos()), world.getBlockState(router.getPos()), 3);
+            } else {
+                PlayerChunkMapEntry entry = world.getPlayerChunkMap().getEntry(router.getPos().getX() >> 4, router.getPos().getZ() >> 4);
+                if (entry != null) {
+                    entry.sendPacket(ModularRouters.network.getPacketFrom(new RouterSyncMessage(router, fields)));
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    @Mod.EventBusSubscriber
+    public static class Handler {
+        @SubscribeEvent
+        public static void onServerTick(TickEvent.ServerTickEvent event) {
+            if (event.phase == TickEvent.Phase.END && !pending.isEmpty()) {
+                flush();
+            }
+        }
+    }
+}
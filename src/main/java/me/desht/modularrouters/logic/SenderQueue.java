@@ -0,0 +1,325 @@
+package me.desht.modularrouters.logic;
+
+import me.desht.modularrouters.ModularRouters;
+import me.desht.modularrouters.config.ConfigHandler;
+import me.desht.modularrouters.util.InventoryUtils;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.storage.MapStorage;
+import net.minecraft.world.storage.WorldSavedData;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import java.util.*;
+
+/**
+ * Persistent outbound queues for Sender Mk3 modules, one per destination (dimension, position & face).  Items
+ * sent to a target which isn't currently loaded are held here (up to {@link ConfigHandler.Module#sender3QueueStacks}
+ * stacks per destination), and delivered in one go when the target's chunk is next loaded, or the next time a
+ * Sender Mk3 module runs with that target loaded.  Saved with the world, so queued items survive a restart.
+ * <p>
+ * Queues aren't owned by any module or router: once queued, items belong to their destination, even if the sending
+ * module is later retargeted or removed, or its router broken.  They always end up at the destination: inserted into
+ * its inventory, or dropped in the world beside it if there's no inventory there any more.  A queue which hasn't
+ * been added to for {@link ConfigHandler.Module#sender3QueueExpiry} ticks is delivered straight away, loading the
+ * destination chunk if need be (but not its dimension), so items can't sit in a queue forever just because nothing
+ * visits the destination.  Items which don't fit in a full destination inventory stay queued (the queue is small)
+ * and are tried again later; they're never dropped just because the inventory is full.
+ */
+public class SenderQueue extends WorldSavedData {
+    private static final String DATA_NAME = ModularRouters.MODID + "_sender_queue";
+
+    // cached here so that chunk loads don't go looking for a data file which doesn't exist
+    private static SenderQueue instance;
+
+    private static final int EXPIRY_CHECK_INTERVAL = 200;  // server ticks
+
+    private final Map<Destination, List<ItemStack>> queues = new LinkedHashMap<>();
+    private final Map<Destination, Long> expiries = new HashMap<>();  // overworld time at which a queue expires
+    private final Set<Destination> pendingDelivery = new LinkedHashSet<>();
+
+    public SenderQueue(String name) {
+        super(name);
+    }
+
+    /**
+     * Get the queue data for the server, creating it if necessary.
+     *
+     * @param world any server world (the data is shared by all dimensions)
+     * @return the queue data
+     */
+    public static SenderQueue get(World world) {
+        if (instance == null) {
+            MapStorage storage = world.getMapStorage();
+            instance = (SenderQueue) storage.getOrLoadData(SenderQueue.class, DATA_NAME);
+            if (instance == null) {
+                instance = new SenderQueue(DATA_NAME);
+                storage.setData(DATA_NAME, instance);
+            }
+        }
+        return instance;
+    }
+
+    public boolean hasQueued(ModuleTarget target) {
+        return queues.containsKey(new Destination(target));
+    }
+
+    /**
+     * Queue items for later delivery to the given target.
+     *
+     * @param target the destination
+     * @param stack the items to queue; not modified
+     * @return the number of items which were queued
+     */
+    public int offer(ModuleTarget target, ItemStack stack) {
+        int maxStacks = ConfigHandler.module.sender3QueueStacks;
+        if (stack.isEmpty() || maxStacks <= 0) {
+            return 0;
+        }
+        List<ItemStack> queue = queues.computeIfAbsent(new Destination(target), k -> new ArrayList<>());
+        int toQueue = stack.getCount();
+        for (ItemStack queued : queue) {
+            if (ItemHandlerHelper.canItemStacksStack(queued, stack)) {
+                int n = Math.min(toQueue, queued.getMaxStackSize() - queued.getCount());
+                queued.grow(n);
+                toQueue -= n;
+                if (toQueue == 0) {
+                    break;
+                }
+            }
+        }
+        while (toQueue > 0 && queue.size() < maxStacks) {
+            int n = Math.min(toQueue, stack.getMaxStackSize());
+            queue.add(ItemHandlerHelper.copyStackWithSize(stack, n));
+            toQueue -= n;
+        }
+        if (queue.isEmpty()) {
+            queues.values().remove(queue);
+        }
+        int queued = stack.getCount() - toQueue;
+        if (queued > 0) {
+            expiries.put(new Destination(target), getTime() + ConfigHandler.module.sender3QueueExpiry);
+            markDirty();
+        }
+        return queued;
+    }
+
+    /**
+     * Deliver as many queued items as possible to the given target, which should be loaded.  If the target is no
+     * longer an inventory, the queued items are dropped in the world beside it; if it's full, they stay queued.
+     *
+     * @param target the destination
+     * @return true if any items were delivered
+     */
+    public boolean deliver(ModuleTarget target) {
+        return deliver(new Destination(target), false);
+    }
+
+    private boolean deliver(Destination dest, boolean forceLoad) {
+        List<ItemStack> queue = queues.get(dest);
+        if (queue == null) {
+            return false;
+        }
+        WorldServer w = DimensionManager.getWorld(dest.dim);
+        if (w == null || !forceLoad && !w.getChunkProvider().chunkExists(dest.pos.getX() >> 4, dest.pos.getZ() >> 4)) {
+            return false;
+        }
+        IItemHandler handler = InventoryUtils.getInventory(w, dest.pos, dest.face);  // loads the chunk if need be
+        if (handler == null) {
+            // nowhere to deliver to any more; don't let the items vanish
+            for (ItemStack stack : queue) {
+                InventoryUtils.dropItems(w, dest.pos.offset(dest.face), stack);
+            }
+            removeQueue(dest);
+            return true;
+        }
+        boolean delivered = false;
+        for (ListIterator<ItemStack> iter = queue.listIterator(); iter.hasNext(); ) {
+            ItemStack queued = iter.next();
+            ItemStack remainder = ItemHandlerHelper.insertItem(handler, queued, false);
+            if (remainder.getCount() != queued.getCount()) {
+                delivered = true;
+                if (remainder.isEmpty()) {
+                    iter.remove();
+                } else {
+                    iter.set(remainder);
+                }
+            }
+        }
+        if (queue.isEmpty()) {
+            removeQueue(dest);
+        }
+        if (delivered) {
+            markDirty();
+        }
+        return delivered;
+    }
+
+    private void removeQueue(Destination dest) {
+        queues.remove(dest);
+        expiries.remove(dest);
+        markDirty();
+    }
+
+    private void deliverExpired() {
+        long now = getTime();
+        List<Destination> expired = new ArrayList<>();
+        for (Map.Entry<Destination, Long> entry : expiries.entrySet()) {
+            if (entry.getValue() <= now) {
+                expired.add(entry.getKey());
+            }
+        }
+        for (Destination dest : expired) {
+            deliver(dest, true);
+            if (queues.containsKey(dest)) {
+                // destination dimension not loaded, or inventory full; keep the items and try again later
+                expiries.put(dest, now + ConfigHandler.module.sender3QueueExpiry);
+                markDirty();
+            }
+        }
+    }
+
+    private static long getTime() {
+        WorldServer overworld = DimensionManager.getWorld(0);
+        return overworld == null ? 0L : overworld.getTotalWorldTime();
+    }
+
+    private void onChunkLoad(int dim, int cx, int cz) {
+        for (Destination dest : queues.keySet()) {
+            if (dest.dim == dim && dest.pos.getX() >> 4 == cx && dest.pos.getZ() >> 4 == cz) {
+                pendingDelivery.add(dest);
+            }
+        }
+    }
+
+    private void deliverPending() {
+        // copy, since a delivery could cause further chunk loads
+        List<Destination> toDeliver = new ArrayList<>(pendingDelivery);
+        pendingDelivery.clear();
+        for (Destination dest : toDeliver) {
+            deliver(dest, false);
+        }
+    }
+
+    @Override
+    public void readFromNBT(NBTTagCompound nbt) {
+        queues.clear();
+        expiries.clear();
+        NBTTagList list = nbt.getTagList("Queues", Constants.NBT.TAG_COMPOUND);
+        for (int i = 0; i < list.tagCount(); i++) {
+            NBTTagCompound tag = list.getCompoundTagAt(i);
+            Destination dest = new Destination(tag.getInteger("Dimension"), BlockPos.fromLong(tag.getLong("Pos")),
+                    EnumFacing.getFront(tag.getByte("Face")));
+            List<ItemStack> queue = new ArrayList<>();
+            NBTTagList items = tag.getTagList("Items", Constants.NBT.TAG_COMPOUND);
+            for (int j = 0; j < items.tagCount(); j++) {
+                ItemStack stack = new ItemStack(items.getCompoundTagAt(j));
+                if (!stack.isEmpty()) {
+                    queue.add(stack);
+                }
+            }
+            if (!queue.isEmpty()) {
+                queues.put(dest, queue);
+                expiries.put(dest, tag.getLong("Expires"));
+            }
+        }
+    }
+
+    @Override
+    public NBTTagCompound writeToNBT(NBTTagCompound compound) {
+        NBTTagList list = new NBTTagList();
+        for (Map.Entry<Destination, List<ItemStack>> entry : queues.entrySet()) {
+            NBTTagCompound tag = new NBTTagCompound();
+            tag.setInteger("Dimension", entry.getKey().dim);
+            tag.setLong("Pos", entry.getKey().pos.toLong());
+            tag.setByte("Face", (byte) entry.getKey().face.getIndex());
+            tag.setLong("Expires", expiries.getOrDefault(entry.getKey(), 0L));
+            NBTTagList items = new NBTTagList();
+            for (ItemStack stack : entry.getValue()) {
+                items.appendTag(stack.writeToNBT(new NBTTagCompound()));
+            }
+            tag.setTag("Items", items);
+            list.appendTag(tag);
+        }
+        compound.setTag("Queues", list);
+        return compound;
+    }
+
+    private static class Destination {
+        private final int dim;
+        private final BlockPos pos;
+        private final EnumFacing face;
+
+        Destination(int dim, BlockPos pos, EnumFacing face) {
+            this.dim = dim;
+            this.pos = pos;
+            this.face = face;
+        }
+
+        Destination(ModuleTarget target) {
+            this(target.dimId, target.pos, target.face);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Destination)) return false;
+            Destination that = (Destination) o;
+            return dim == that.dim && pos.equals(that.pos) && face == that.face;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dim, pos, face);
+        }
+    }
+
+    @Mod.EventBusSubscriber
+    public static class Handler {
+        @SubscribeEvent
+        public static void onWorldLoad(WorldEvent.Load event) {
+            if (!event.getWorld().isRemote && event.getWorld().provider.getDimension() == 0) {
+                // pick up any saved queue now, so deliveries can happen before a sender next runs
+                instance = (SenderQueue) event.getWorld().getMapStorage().getOrLoadData(SenderQueue.class, DATA_NAME);
+            }
+        }
+
+        @SubscribeEvent
+        public static void onWorldUnload(WorldEvent.Unload event) {
+            if (!event.getWorld().isRemote && event.getWorld().provider.getDimension() == 0) {
+                instance = null;
+            }
+        }
+
+        @SubscribeEvent
+        public static void onChunkLoad(ChunkEvent.Load event) {
+            if (!event.getWorld().isRemote && instance != null && !instance.queues.isEmpty()) {
+                instance.onChunkLoad(event.getWorld().provider.getDimension(), event.getChunk().x, event.getChunk().z);
+            }
+        }
+
+        @SubscribeEvent
+        public static void onServerTick(TickEvent.ServerTickEvent event) {
+            if (event.phase == TickEvent.Phase.END && instance != null) {
+                if (!instance.pendingDelivery.isEmpty()) {
+                    instance.deliverPending();
+                }
+                if (!instance.expiries.isEmpty() && getTime() % EXPIRY_CHECK_INTERVAL == 0) {
+                    instance.deliverExpired();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package me.desht.modularrouters.logic;
+
+import me.desht.modularrouters.util.BlockUtil;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the cached validation state of remote module targets (Sender Mk2/Mk3, Puller Mk2) up to date, so that
+ * modules don't need to look at the target's world when compiled or executed just to find out if the target is
+ * loaded, or to refresh the target's block name.
+ * <p>
+ * Watched targets have their loaded state updated as their chunk loads and unloads.  Block name lookups are
+ * deferred to the end of the server tick, and only done when a watch is added or the target's chunk is loaded.
+ * Watches are dropped when their module goes away, or when the world holding the module's router is unloaded.
+ */
+public class TargetValidator {
+    private static final Map<Integer, Map<Long, Set<Watch>>> watches = new HashMap<>();
+    private static final Set<Watch> pendingRefresh = new LinkedHashSet<>();
+
+    /**
+     * Start watching a module target.  Server-side only.
+     *
+     * @param target the target
+     * @param ownerDim dimension of the router holding the module which owns the target
+     * @param onRename called (at the end of a server tick) with the target's current block name, if it differs
+     *                 from the name stored in the target
+     * @return a watch handle, to be passed to {@link #unwatch(Watch)} when the target is no longer needed
+     */
+    public static Watch watch(ModuleTarget target, int ownerDim, Consumer<String> onRename) {
+        Watch watch = new Watch(target, ownerDim, onRename);
+        int cx = target.pos.getX() >> 4;
+        int cz = target.pos.getZ() >> 4;
+        watches.computeIfAbsent(target.dimId, k -> new HashMap<>())
+                .computeIfAbsent(ChunkPos.asLong(cx, cz), k -> new HashSet<>())
+                .add(watch);
+        WorldServer w = DimensionManager.getWorld(target.dimId);
+        target.setChunkLoaded(w != null && w.getChunkProvider().chunkExists(cx, cz));
+        if (target.isChunkLoaded()) {
+            pendingRefresh.add(watch);
+        }
+        return watch;
+    }
+
+    public static void unwatch(Watch watch) {
+        Map<Long, Set<Watch>> dimWatches = watches.get(watch.target.dimId);
+        if (dimWatches != null) {
+            long key = ChunkPos.asLong(watch.target.pos.getX() >> 4, watch.target.pos.getZ() >> 4);
+            Set<Watch> set = dimWatches.get(key);
+            if (set != null) {
+                set.remove(watch);
+                if (set.isEmpty()) {
+                    dimWatches.remove(key);
+                }
+            }
+        }
+        pendingRefresh.remove(watch);
+    }
+
+    /**
+     * Drop all the watches owned by routers in the given dimension.  Such routers get no unload notification
+     * when the server stops, and their rename callbacks would otherwise keep the router (and its world) alive.
+     *
+     * @param ownerDim the dimension
+     */
+    private static void unwatchAll(int ownerDim) {
+        for (Iterator<Map<Long, Set<Watch>>> iter = watches.values().iterator(); iter.hasNext(); ) {
+            Map<Long, Set<Watch>> dimWatches = iter.next();
+            dimWatches.values().removeIf(set -> {
+                set.removeIf(w -> w.ownerDim == ownerDim);
+                return set.isEmpty();
+            });
+            if (dimWatches.isEmpty()) {
+                iter.remove();
+            }
+        }
+        pendingRefresh.removeIf(w -> w.ownerDim == ownerDim);
+    }
+
+    private static Set<Watch> getWatches(int dim, int cx, int cz) {
+        Map<Long, Set<Watch>> dimWatches = watches.get(dim);
+        return dimWatches == null ? null : dimWatches.get(ChunkPos.asLong(cx, cz));
+    }
+
+    private static void refresh() {
+        for (Watch watch : pendingRefresh) {
+            ModuleTarget target = watch.target;
+            WorldServer w = DimensionManager.getWorld(target.dimId);
+            if (w == null || !target.isChunkLoaded()) {
+                continue;
+            }
+            String name = BlockUtil.getBlockName(w, target.pos);
+            target.setBlockName(name);
+            if (name != null && !name.equals(target.invName)) {
+                watch.onRename.accept(name);
+            }
+        }
+        pendingRefresh.clear();
+    }
+
+    public static class Watch {
+        private final ModuleTarget target;
+        private final int ownerDim;
+        private final Consumer<String> onRename;
+
+        private Watch(ModuleTarget target, int ownerDim, Consumer<String> onRename) {
+            this.target = target;
+            this.ownerDim = ownerDim;
+            this.onRename = onRename;
+        }
+    }
+
+    @Mod.EventBusSubscriber
+    public static class Handler {
+        @SubscribeEvent
+        public static void onChunkLoad(ChunkEvent.Load event) {
+            if (!event.getWorld().isRemote) {
+                Set<Watch> set = getWatches(event.getWorld().provider.getDimension(), event.getChunk().x, event.getChunk().z);
+                if (set != null) {
+                    for (Watch watch : set) {
+                        watch.target.setChunkLoaded(true);
+                        pendingRefresh.add(watch);
+                    }
+                }
+            }
+        }
+
+        @SubscribeEvent
+        public static void onChunkUnload(ChunkEvent.Unload event) {
+            if (!event.getWorld().isRemote) {
+                Set<Watch> set = getWatches(event.getWorld().provider.getDimension(), event.getChunk().x, event.getChunk().z);
+                if (set != null) {
+                    for (Watch watch : set) {
+                        watch.target.setChunkLoaded(false);
+                        pendingRefresh.remove(watch);
+                    }
+                }
+            }
+        }
+
+        @SubscribeEvent
+        public static void onWorldUnload(WorldEvent.Unload event) {
+            if (!event.getWorld().isRemote) {
+                int dim = event.getWorld().provider.getDimension();
+                unwatchAll(dim);
+                // watches owned by routers in other dimensions stay registered, but their targets here are gone
+                Map<Long, Set<Watch>> dimWatches = watches.get(dim);
+                if (dimWatches != null) {
+                    for (Set<Watch> set : dimWatches.values()) {
+                        for (Watch watch : set) {
+                            watch.target.setChunkLoaded(false);
+                            pendingRefresh.remove(watch);
+                        }
+                    }
+                }
+            }
+        }
+
+        @SubscribeEvent
+        public static void onServerTick(TickEvent.ServerTickEvent event) {
+            if (event.phase == TickEvent.Phase.END && !pendingRefresh.isEmpty()) {
+                refresh();
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import me.desht.modularrouters.config.ConfigHandler;
 import me.desht.modularrouters.item.upgrade.ItemUpgrade;
 import me.desht.modularrouters.util.BlockUtil;
 import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
 import net.minecraft.enchantment.EnchantmentHelper;
 import net.minecraft.init.Enchantments;
 import net.minecraft.item.ItemStack;
@@ -12,35 +13,112 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class CompiledBreakerModule extends CompiledModule {
+    // consecutive filter rejections (with no match ever seen) before a block state is predicted never to match
+    private static final int MISSES_BEFORE_SKIP = 4;
+
     private final boolean silkTouch;
     private final int fortune;
+    private final Map<IBlockState, DropPrediction> predictions = new HashMap<>();
+    private final ModuleArea area;  // null unless in area mode
+    private int runs;  // counts breaking runs, for re-probe timing
 
     public CompiledBreakerModule(TileEntityItemRouter router, ItemStack stack) {
         super(router, stack);
 
         silkTouch = EnchantmentHelper.getEnchantmentLevel(Enchantments.SILK_TOUCH, stack) > 0;
         fortune = EnchantmentHelper.getEnchantmentLevel(Enchantments.FORTUNE, stack);
+        area = ModuleArea.forModule(this, stack);
+    }
+
+    @Override
+    public BufferEffect getBufferEffect() {
+        return BufferEffect.FILLS;
     }
 
     @Override
     public boolean execute(TileEntityItemRouter router) {
-        if (isRegulationOK(router, true)) {
+        // don't break anything more while there are still surplus drops waiting to go into the buffer
+        if (router.getOverflowDepth() == 0 && isRegulationOK(router, true)) {
             World world = router.getWorld();
             if (!(world instanceof WorldServer)) {
                 return false;
             }
-            BlockPos pos = getTarget().pos;
-            int oldId = Block.getStateId(world.getBlockState(pos));
-            BlockUtil.BreakResult breakResult = BlockUtil.tryBreakBlock(world, pos, getFilter(), silkTouch, fortune);
-            if (breakResult.isBlockBroken()) {
-                breakResult.processDrops(world, pos, router.getBuffer());
-                if (ConfigHandler.module.breakerParticles && router.getUpgradeCount(ItemUpgrade.UpgradeType.MUFFLER) == 0) {
-                    world.playEvent(2001, pos, oldId);
+            runs++;
+            if (area == null) {
+                return breakBlock(router, world, getTarget().pos);
+            }
+            int nToBreak = getItemsPerTick(router);
+            int broken = 0;
+            for (int i = area.getVisitLimit(nToBreak); i > 0 && broken < nToBreak; i--) {
+                BlockPos pos = area.next();
+                if (world.isBlockLoaded(pos) && breakBlock(router, world, pos)) {
+                    broken++;
+                    if (router.getOverflowDepth() > 0 || !isRegulationOK(router, true)) {
+                        break;
+                    }
                 }
-                return true;
             }
+            return broken > 0;
         }
         return false;
     }
+
+    private boolean breakBlock(TileEntityItemRouter router, World world, BlockPos pos) {
+        IBlockState state = world.getBlockState(pos);
+        if (!worthBreaking(state)) {
+            return false;
+        }
+        int oldId = Block.getStateId(state);
+        BlockUtil.BreakResult breakResult = BlockUtil.tryBreakBlock(world, pos, getFilter(), silkTouch, fortune);
+        recordResult(state, breakResult);
+        if (breakResult.isBlockBroken()) {
+            breakResult.processDrops(world, pos, router.getBuffer(), router::stashOverflow);
+            if (ConfigHandler.module.breakerParticles && router.getUpgradeCount(ItemUpgrade.UpgradeType.MUFFLER) == 0) {
+                world.playEvent(2001, pos, oldId);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check if it's worth trying to break a block in the given state, i.e. computing its drops and testing them
+     * against the filter.  States whose drops have repeatedly failed the filter (and have never passed it)
+     * are only re-tried once every so many runs (however many blocks of that state an area holds), since drops
+     * can be random.
+     *
+     * @param state the block state
+     * @return true if the block should be tried
+     */
+    private boolean worthBreaking(IBlockState state) {
+        int interval = ConfigHandler.module.breakerReprobeInterval;
+        DropPrediction prediction = predictions.get(state);
+        if (interval <= 0 || prediction == null || prediction.everMatched || prediction.misses < MISSES_BEFORE_SKIP) {
+            return true;
+        }
+        if (runs - prediction.probeRun >= interval) {
+            prediction.probeRun = runs;  // re-probe every block of this state visited in this run
+        }
+        return prediction.probeRun == runs;
+    }
+
+    private void recordResult(IBlockState state, BlockUtil.BreakResult result) {
+        if (result.isBlockBroken()) {
+            predictions.computeIfAbsent(state, k -> new DropPrediction()).everMatched = true;
+        } else if (result.isFilterRejected()) {
+            DropPrediction prediction = predictions.computeIfAbsent(state, k -> new DropPrediction());
+            prediction.misses++;
+            prediction.probeRun = runs;
+        }
+    }
+
+    private static class DropPrediction {
+        private boolean everMatched;
+        private int misses;
+        private int probeRun;  // the last run in which this state was tried
+    }
 }
@@ -26,6 +26,17 @@ public class CompiledDetectorModule extends CompiledModule {
         return true;
     }
 
+    @Override
+    protected boolean canBackOff() {
+        // must run every time to keep its emitted signal up to date
+        return false;
+    }
+
+    @Override
+    public BufferEffect getBufferEffect() {
+        return BufferEffect.READS;
+    }
+
     @Override
     public boolean execute(TileEntityItemRouter router) {
         ItemStack stack = router.getBufferItemStack();
@@ -17,6 +17,16 @@ public class CompiledDropperModule extends CompiledModule {
         pickupDelay = getAugmentCount(ItemAugment.AugmentType.PICKUP_DELAY) * PickupDelayAugment.TICKS_PER_AUGMENT;
     }
 
+    @Override
+    public BufferEffect getBufferEffect() {
+        return BufferEffect.DRAINS;
+    }
+
+    @Override
+    public boolean allowsBulkPasses() {
+        return true;
+    }
+
     @Override
     public boolean execute(TileEntityItemRouter router) {
         ItemStack stack = router.getBufferItemStack();
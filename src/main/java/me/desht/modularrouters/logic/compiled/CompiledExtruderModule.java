@@ -26,6 +26,12 @@ public class CompiledExtruderModule extends CompiledModule {
         silkTouch = EnchantmentHelper.getEnchantmentLevel(Enchantments.SILK_TOUCH, stack) > 0;
     }
 
+    @Override
+    protected boolean canBackOff() {
+        // extends or retracts according to redstone state, which must be checked every time
+        return false;
+    }
+
     @Override
     public boolean execute(TileEntityItemRouter router) {
         boolean extend = shouldExtend(router);
@@ -59,7 +65,7 @@ public class CompiledExtruderModule extends CompiledModule {
             BlockUtil.BreakResult dropResult = BlockUtil.tryBreakBlock(world, breakPos, getFilter(), silkTouch, 0);
             if (dropResult.isBlockBroken()) {
                 router.getExtData().setInteger(NBT_EXTRUDER_DIST + getFacing(), --distance);
-                dropResult.processDrops(world, breakPos, router.getBuffer());
+                dropResult.processDrops(world, breakPos, router.getBuffer(), router::stashOverflow);
                 if (ConfigHandler.module.extruderSound) {
                     router.playSound(null, breakPos,
                             oldBlock.getSoundType(oldState, world, breakPos, null).getBreakSound(),
@@ -37,6 +37,12 @@ public class CompiledFlingerModule extends CompiledDropperModule {
         yaw = compound.getFloat(NBT_YAW);
     }
 
+    @Override
+    public boolean allowsBulkPasses() {
+        // flung items are a visible world effect; one per router run
+        return false;
+    }
+
     @Override
     public boolean execute(TileEntityItemRouter router) {
         boolean fired = super.execute(router);
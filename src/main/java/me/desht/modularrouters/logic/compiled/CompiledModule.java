@@ -1,26 +1,51 @@
 package me.desht.modularrouters.logic.compiled;
 
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
+import me.desht.modularrouters.config.ConfigHandler;
 import me.desht.modularrouters.item.augment.ItemAugment;
 import me.desht.modularrouters.item.augment.ItemAugment.AugmentCounter;
 import me.desht.modularrouters.item.module.IRangedModule;
 import me.desht.modularrouters.item.module.ItemModule;
 import me.desht.modularrouters.item.module.Module;
+import me.desht.modularrouters.item.module.TargetedModule;
 import me.desht.modularrouters.logic.ModuleTarget;
 import me.desht.modularrouters.logic.RouterRedstoneBehaviour;
+import me.desht.modularrouters.logic.TargetValidator;
 import me.desht.modularrouters.logic.filter.Filter;
 import me.desht.modularrouters.util.BlockUtil;
-import me.desht.modularrouters.util.CountedItemStacks;
+import me.desht.modularrouters.util.CachedItemHandler;
+import me.desht.modularrouters.util.InventoryCensus;
+import me.desht.modularrouters.util.InventoryUtils;
 import me.desht.modularrouters.util.ModuleHelper;
+import me.desht.modularrouters.util.SlotIndex;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 import net.minecraftforge.items.IItemHandler;
 import net.minecraftforge.items.ItemHandlerHelper;
+import org.apache.commons.lang3.mutable.MutableInt;
+
+import javax.annotation.Nullable;
+import java.util.BitSet;
 
 public abstract class CompiledModule {
+    // max unusable slots (out of date, or rejected on a closer look) the slot index may offer when looking for something to pull
+    private static final int MAX_INDEX_RETRIES = 8;
+
+    /**
+     * What a module does to the contents of the router's buffer when executed.
+     */
+    public enum BufferEffect {
+        FILLS,   // only ever adds items to the buffer
+        DRAINS,  // only ever removes items from the buffer
+        READS,   // looks at the buffer, but doesn't change it
+        MIXED    // could do any of the above, or something else entirely
+    }
+
     private final Filter filter;
     private final Module module;
+    private final ItemModule.ModuleType moduleType;
     private final Module.RelativeDirection direction;
     private final ModuleTarget target;
     private final RouterRedstoneBehaviour behaviour;
@@ -31,6 +56,19 @@ public abstract class CompiledModule {
     private final int range, rangeSquared;
 
     private int lastMatchPos = 0;
+    private final MutableInt lastInsertPos = new MutableInt(0);
+    private final CachedItemHandler cachedTargetHandler = new CachedItemHandler();
+    private SlotIndex slotIndex;
+    private InventoryCensus census;
+    private TargetValidator.Watch targetWatch;
+
+    // negative-result backoff: a module which keeps doing nothing skips a growing number of router runs
+    private int failedRuns;
+    private int runsToSkip;
+    private int bufferChangeCount;
+    private boolean backedOff;
+    private boolean ranThisRun;
+    private boolean workedThisRun;
 
     /**
      * Base constructor for compiled modules.  This can be called for both installed and uninstalled modules;
@@ -46,6 +84,7 @@ public abstract class CompiledModule {
         }
 
         module = ItemModule.getModule(stack);
+        moduleType = ItemModule.ModuleType.getType(stack);
         augmentCounter = new AugmentCounter(stack);
         direction = ModuleHelper.getDirectionFromNBT(stack);
         range = module instanceof IRangedModule ?
@@ -72,6 +111,10 @@ public abstract class CompiledModule {
         return module;
     }
 
+    public ItemModule.ModuleType getModuleType() {
+        return moduleType;
+    }
+
     public Filter getFilter() {
         return filter;
     }
@@ -129,6 +172,192 @@ public abstract class CompiledModule {
         // does nothing by default
     }
 
+    /**
+     * Called when the router this module is installed in is removed from the world, or its chunk is unloaded.
+     * Any external registrations made in {@link #onCompiled(TileEntityItemRouter)} should be dropped here.  Unlike
+     * {@link #cleanup(TileEntityItemRouter)}, this must not try to modify the world.
+     *
+     * @param router router the module is installed in
+     */
+    public void onRouterUnloaded(TileEntityItemRouter router) {
+        // does nothing by default
+    }
+
+    /**
+     * Have the {@link TargetValidator} keep this module's target up to date: both its loaded state, and the target
+     * block name stored in the module item.  For modules with a remote target; call from
+     * {@link #onCompiled(TileEntityItemRouter)}, and call {@link #unwatchTarget()} when the module goes away.
+     *
+     * @param router router the module is installed in
+     * @param stack the module item stack installed in the router
+     */
+    void watchTarget(TileEntityItemRouter router, ItemStack stack) {
+        if (target != null && !router.getWorld().isRemote) {
+            targetWatch = TargetValidator.watch(target, router.getWorld().provider.getDimension(), name -> {
+                TargetedModule.updateTargetName(stack, name);
+                router.onModuleItemUpdated(this);
+            });
+        }
+    }
+
+    void unwatchTarget() {
+        if (targetWatch != null) {
+            TargetValidator.unwatch(targetWatch);
+            targetWatch = null;
+        }
+    }
+
+    /**
+     * Called when a block next to the router changes.  Any cached information about the world which could
+     * depend on that block should be discarded.
+     *
+     * @param router router the module is installed in
+     */
+    public void onNeighbourChange(TileEntityItemRouter router) {
+        cachedTargetHandler.invalidate();
+        resetBackoff();
+    }
+
+    /**
+     * Get the effect this module has on the router's buffer.  Used to optimise the order in which a router's
+     * modules are executed (see {@link ConfigHandler.Router#optimiseModuleOrder}); modules which don't override
+     * this are never moved.
+     *
+     * @return the buffer effect
+     */
+    public BufferEffect getBufferEffect() {
+        return BufferEffect.MIXED;
+    }
+
+    /**
+     * Can this module run again in the extra passes a router with Bulk Upgrades makes over its modules?  Only
+     * modules which just move items through the buffer should; modules with other effects on the world
+     * (e.g. placing or breaking blocks) run once per router run as usual.
+     *
+     * @return true if the module may run in extra passes
+     */
+    public boolean allowsBulkPasses() {
+        return false;
+    }
+
+    /**
+     * Can this module be backed off (skip router runs) after repeatedly doing nothing?  Modules which must run
+     * every time to keep some state correct (e.g. emitted redstone signals), or which have their own way of
+     * skipping unneeded work, should return false.
+     *
+     * @return true if the module may be backed off
+     */
+    protected boolean canBackOff() {
+        return true;
+    }
+
+    /**
+     * Called by the router at the start of each run, before any modules are executed.  Decides whether
+     * this module is backed off for the run.  Pulsed runs are never backed off.
+     *
+     * @param pulsed true if this run is triggered by a redstone pulse
+     * @param bufferChangeCount the router buffer's current change count
+     */
+    public void beginRun(boolean pulsed, int bufferChangeCount) {
+        ranThisRun = workedThisRun = false;
+        if (bufferChangeCount != this.bufferChangeCount) {
+            // different buffer contents; this module might succeed now
+            this.bufferChangeCount = bufferChangeCount;
+            resetBackoff();
+        }
+        backedOff = !pulsed && runsToSkip > 0;
+        if (backedOff) {
+            runsToSkip--;
+        }
+    }
+
+    public boolean isBackedOff() {
+        return backedOff;
+    }
+
+    /**
+     * Called by the router each time this module is executed during a run.
+     *
+     * @param didWork the result of {@link #execute(TileEntityItemRouter)}
+     * @param bufferChangeCount the router buffer's change count after the execution
+     */
+    public void recordExecution(boolean didWork, int bufferChangeCount) {
+        ranThisRun = true;
+        workedThisRun |= didWork;
+        // any later buffer change (e.g. by another module in this run) will reset the backoff
+        this.bufferChangeCount = bufferChangeCount;
+    }
+
+    /**
+     * Called by the router at the end of each run, after all modules have been executed.  Pulsed runs
+     * don't affect the backoff.
+     *
+     * @param pulsed true if this run was triggered by a redstone pulse
+     */
+    public void endRun(boolean pulsed) {
+        if (!ranThisRun || pulsed || !canBackOff()) {
+            return;
+        }
+        if (workedThisRun) {
+            resetBackoff();
+        } else {
+            // skip 1, 2, 4... runs after the 2nd, 3rd, 4th... consecutive failure, up to the configured max
+            int max = ConfigHandler.router.maxModuleBackoff;
+            failedRuns++;
+            runsToSkip = failedRuns < 2 || max == 0 ? 0 : Math.min(max, 1 << Math.min(failedRuns - 2, 16));
+        }
+    }
+
+    public void resetBackoff() {
+        failedRuns = 0;
+        runsToSkip = 0;
+    }
+
+    /**
+     * Get the inventory at the given place, using a cached lookup where possible.
+     *
+     * @param world the world
+     * @param pos block position of the inventory
+     * @param face side to access the inventory from
+     * @return the item handler, or null if there is none
+     */
+    IItemHandler getTargetInventory(World world, BlockPos pos, EnumFacing face) {
+        return cachedTargetHandler.get(world, pos, face);
+    }
+
+    /**
+     * Transfer items from the router's buffer into the given inventory.  The search for a slot with space starts
+     * at the slot which last accepted items from this module.
+     *
+     * @param router the router
+     * @param handler the destination inventory
+     * @param count max number of items to transfer
+     * @return number of items actually transferred
+     */
+    int transferFromRouter(TileEntityItemRouter router, IItemHandler handler, int count) {
+        return InventoryUtils.transferItems(router.getBuffer(), handler, 0, count, lastInsertPos);
+    }
+
+    /**
+     * As {@link #transferFromRouter(TileEntityItemRouter, IItemHandler, int)}, but also record the transferred
+     * items in the given census of the destination inventory.
+     *
+     * @param router the router
+     * @param handler the destination inventory
+     * @param count max number of items to transfer
+     * @param census census of the destination inventory, may be null
+     * @return number of items actually transferred
+     */
+    int transferFromRouter(TileEntityItemRouter router, IItemHandler handler, int count, @Nullable InventoryCensus census) {
+        if (census == null) {
+            return transferFromRouter(router, handler, count);
+        }
+        ItemStack toSend = router.getBufferItemStack().copy();
+        int sent = transferFromRouter(router, handler, count);
+        census.adjust(toSend, sent);
+        return sent;
+    }
+
     /**
      * Get the last position where we found a match.  Caching this can help reduce the amount of inventory searching
      * needed for some modules.
@@ -185,57 +414,91 @@ public abstract class CompiledModule {
      * @return number of items actually transferred
      */
     int transferToRouter(IItemHandler handler, TileEntityItemRouter router) {
-        CountedItemStacks count = null;
-        if (getRegulationAmount() > 0) {
-            count = new CountedItemStacks(handler);
+        ItemStack inBuffer = router.peekBuffer(1);
+        if (!inBuffer.isEmpty() && !getFilter().test(inBuffer)) {
+            return 0;  // can only pull more of what's already buffered
         }
 
-        ItemStack wanted = findItemToPull(router, handler, getItemsPerTick(router), count);
+        InventoryCensus census = getRegulationAmount() > 0 ? getCensus(router, handler) : null;
+        SlotIndex index = getSlotIndex(router, handler);
+        ItemStack wanted = findItemToPull(router, handler, getItemsPerTick(router), census, index);
         if (wanted.isEmpty()) {
             return 0;
         }
 
-        if (count != null) {
+        if (census != null) {
             // item regulation in force
-            wanted.setCount(Math.min(wanted.getCount(), count.getOrDefault(wanted, 0) - getRegulationAmount()));
+            wanted.setCount(Math.min(wanted.getCount(), census.count(wanted, true) - getRegulationAmount()));
             if (wanted.isEmpty()) {
                 return 0;
             }
         }
 
+        // with an index, we only need to visit the slots known to hold the wanted item
+        int[] candidates = index == null ? null : index.getSlots(wanted, getLastMatchPos(0, handler.getSlots()));
+        int nSlots = candidates == null ? handler.getSlots() : candidates.length;
         int totalInserted = 0;
-        for (int i = 0; i < handler.getSlots(); i++) {
-            int pos = getLastMatchPos(i, handler.getSlots());
+        for (int i = 0; i < nSlots; i++) {
+            int pos = candidates == null ? getLastMatchPos(i, handler.getSlots()) : candidates[i];
             ItemStack toPull = handler.extractItem(pos, wanted.getCount(), true);
             if (ItemHandlerHelper.canItemStacksStack(wanted, toPull)) {
                 // this item is suitable for pulling
                 ItemStack notInserted = router.insertBuffer(toPull);
                 int inserted = toPull.getCount() - notInserted.getCount();
                 handler.extractItem(pos, inserted, false);
+                if (index != null) {
+                    index.updateSlot(pos);
+                }
+                if (census != null) {
+                    census.adjust(toPull, -inserted);
+                }
                 wanted.shrink(inserted);
                 totalInserted += inserted;
                 if (wanted.isEmpty() || router.isBufferFull()) {
                     setLastMatchPos(handler.getStackInSlot(pos).isEmpty() ? (pos + 1) % handler.getSlots() : pos);
                     return totalInserted;
                 }
+            } else if (index != null) {
+                index.updateSlot(pos);  // index was out of date for this slot
             }
         }
         return totalInserted;
     }
 
-    private ItemStack findItemToPull(TileEntityItemRouter router, IItemHandler handler, int nToTake, CountedItemStacks count) {
+    private ItemStack findItemToPull(TileEntityItemRouter router, IItemHandler handler, int nToTake, InventoryCensus census, SlotIndex index) {
         ItemStack stackInRouter = router.peekBuffer(1);
         ItemStack result = ItemStack.EMPTY;
         if (!stackInRouter.isEmpty() && getFilter().test(stackInRouter)) {
             // something in the router - try to pull more of that
             result = stackInRouter.copy();
             result.setCount(nToTake);
+        } else if (stackInRouter.isEmpty() && index != null) {
+            // router empty - pull the next indexed item that passes the filter
+            // (the index may be out of date for slots changed by something else, and a non-cacheable filter may
+            // judge the real stack differently to the indexed item, so check what's really there)
+            BitSet rejected = new BitSet();
+            for (int tries = 0; tries < MAX_INDEX_RETRIES; tries++) {
+                int pos = index.findSlot(getLastMatchPos(0, handler.getSlots()), getFilter(), getFilter().isCacheable(),
+                        census == null ? null : stack -> census.count(stack, true) > getRegulationAmount(), rejected);
+                if (pos < 0) {
+                    break;
+                }
+                ItemStack stack = handler.getStackInSlot(pos);
+                if (!stack.isEmpty() && getFilter().test(stack) && (census == null || census.count(stack, true) > getRegulationAmount())) {
+                    setLastMatchPos(pos);
+                    result = stack.copy();
+                    result.setCount(nToTake);
+                    break;
+                }
+                index.updateSlot(pos);
+                rejected.set(pos);
+            }
         } else if (stackInRouter.isEmpty()) {
             // router empty - just pull the next item that passes the filter
             for (int i = 0; i < handler.getSlots(); i++) {
                 int pos = getLastMatchPos(i, handler.getSlots());
                 ItemStack stack = handler.getStackInSlot(pos);
-                if (!stack.isEmpty() && getFilter().test(stack) && (count == null || count.get(stack) > getRegulationAmount())) {
+                if (!stack.isEmpty() && getFilter().test(stack) && (census == null || census.count(stack, true) > getRegulationAmount())) {
                     setLastMatchPos(pos);
                     result = stack.copy();
                     result.setCount(nToTake);
@@ -246,6 +509,42 @@ public abstract class CompiledModule {
         return result;
     }
 
+    /**
+     * Get an up-to-date index of the given inventory's contents, if the inventory is large enough to warrant one.
+     *
+     * @param handler the inventory
+     * @return the slot index, or null if the inventory should just be scanned
+     */
+    private SlotIndex getSlotIndex(TileEntityItemRouter router, IItemHandler handler) {
+        int minSlots = ConfigHandler.module.slotIndexMinSlots;
+        if (minSlots <= 0 || handler.getSlots() < minSlots) {
+            slotIndex = null;
+            return null;
+        }
+        if (slotIndex == null || !slotIndex.isFor(handler)) {
+            slotIndex = new SlotIndex(handler);
+        }
+        slotIndex.refresh(router.getWorld().getTotalWorldTime(), ConfigHandler.module.slotIndexVerifyInterval);
+        return slotIndex;
+    }
+
+    /**
+     * Get a census of the given inventory's contents, for item regulation.  The census is kept between runs, and
+     * only fully recounted every so often (see {@link ConfigHandler.Module#censusVerifyInterval}); in between,
+     * it's patched with the items this module moves.
+     *
+     * @param router the router
+     * @param handler the inventory
+     * @return the census
+     */
+    InventoryCensus getCensus(TileEntityItemRouter router, IItemHandler handler) {
+        if (census == null || !census.isFor(handler)) {
+            census = new InventoryCensus(handler);
+        }
+        census.refresh(router.getWorld().getTotalWorldTime(), ConfigHandler.module.censusVerifyInterval);
+        return census;
+    }
+
     /**
      * Get the real target for this module, which is not necessarily the same as the result of getTarget().
      * E.g. for a Sender Mk1, the real target may be a few blocks away, and may change without router recompilation
@@ -11,8 +11,17 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
 public class CompiledPlacerModule extends CompiledModule {
+    private final ModuleArea area;  // null unless in area mode
+
     public CompiledPlacerModule(TileEntityItemRouter router, ItemStack stack) {
         super(router, stack);
+
+        area = ModuleArea.forModule(this, stack);
+    }
+
+    @Override
+    public BufferEffect getBufferEffect() {
+        return BufferEffect.DRAINS;
     }
 
     @Override
@@ -25,7 +34,25 @@ public class CompiledPlacerModule extends CompiledModule {
             return false;
         }
         World w = router.getWorld();
-        BlockPos pos = getTarget().pos;
+        if (area == null) {
+            return placeBlock(router, w, getTarget().pos, toPlace);
+        }
+        int nToPlace = getItemsPerTick(router);
+        int placed = 0;
+        for (int i = area.getVisitLimit(nToPlace); i > 0 && placed < nToPlace; i--) {
+            BlockPos pos = area.next();
+            if (w.isBlockLoaded(pos) && placeBlock(router, w, pos, toPlace)) {
+                placed++;
+                toPlace = router.peekBuffer(1);
+                if (toPlace.isEmpty() || !isRegulationOK(router, false)) {
+                    break;
+                }
+            }
+        }
+        return placed > 0;
+    }
+
+    private boolean placeBlock(TileEntityItemRouter router, World w, BlockPos pos, ItemStack toPlace) {
         IBlockState newState = BlockUtil.tryPlaceAsBlock(toPlace, w, pos, getFacing());
         if (newState != null) {
             if (ConfigHandler.module.placerParticles && router.getUpgradeCount(ItemUpgrade.UpgradeType.MUFFLER) == 0) {
@@ -1,7 +1,7 @@
 package me.desht.modularrouters.logic.compiled;
 
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
-import me.desht.modularrouters.util.InventoryUtils;
+import me.desht.modularrouters.util.InventoryCensus;
 import me.desht.modularrouters.util.ModuleHelper;
 import net.minecraft.entity.EntityLiving;
 import net.minecraft.entity.player.EntityPlayer;
@@ -40,6 +40,8 @@ public class CompiledPlayerModule extends CompiledModule {
     private final UUID playerId;
     private final String playerName;
     private WeakReference<EntityPlayer> playerRef;
+    private WeakReference<EntityPlayer> handlerOwnerRef = new WeakReference<>(null);
+    private IItemHandler cachedHandler;
 
     public CompiledPlayerModule(TileEntityItemRouter router, ItemStack stack) {
         super(router, stack);
@@ -70,6 +72,11 @@ public class CompiledPlayerModule extends CompiledModule {
         return getPlayer() != null;
     }
 
+    @Override
+    public BufferEffect getBufferEffect() {
+        return operation == Operation.EXTRACT ? BufferEffect.FILLS : BufferEffect.DRAINS;
+    }
+
     @Override
     public boolean execute(TileEntityItemRouter router) {
         EntityPlayer player = getPlayer();  // will be non-null if we get here
@@ -91,14 +98,16 @@ public class CompiledPlayerModule extends CompiledModule {
                         return insertArmor(router, itemHandler, bufferStack);
                     } else {
                         int nToSend = getItemsPerTick(router);
+                        InventoryCensus census = null;
                         if (getRegulationAmount() > 0) {
-                            int existing = InventoryUtils.countItems(bufferStack, itemHandler, getRegulationAmount(), !getFilter().getFlags().isIgnoreMeta());
+                            census = getCensus(router, itemHandler);
+                            int existing = census.count(bufferStack, !getFilter().getFlags().isIgnoreMeta());
                             nToSend = Math.min(nToSend, getRegulationAmount() - existing);
                             if (nToSend <= 0) {
                                 return false;
                             }
                         }
-                        int sent = InventoryUtils.transferItems(router.getBuffer(), itemHandler, 0, nToSend);
+                        int sent = transferFromRouter(router, itemHandler, nToSend, census);
                         return sent > 0;
                     }
                 }
@@ -142,6 +151,12 @@ public class CompiledPlayerModule extends CompiledModule {
         }
     }
 
+    @Override
+    public void onRouterUnloaded(TileEntityItemRouter router) {
+        super.onRouterUnloaded(router);
+        MinecraftForge.EVENT_BUS.unregister(this);
+    }
+
     public String getPlayerName() {
         return playerName;
     }
@@ -179,6 +194,15 @@ public class CompiledPlayerModule extends CompiledModule {
     }
 
     private IItemHandler getHandler(EntityPlayer player) {
+        // the inventory wrappers stay valid for as long as the player entity does
+        if (cachedHandler == null || handlerOwnerRef.get() != player) {
+            cachedHandler = createHandler(player);
+            handlerOwnerRef = new WeakReference<>(player);
+        }
+        return cachedHandler;
+    }
+
+    private IItemHandler createHandler(EntityPlayer player) {
         switch (section) {
             case MAIN: return new PlayerMainInvWrapper(player.inventory);
             case ARMOR: return new PlayerArmorInvWrapper(player.inventory);
@@ -3,7 +3,6 @@ package me.desht.modularrouters.logic.compiled;
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
 import me.desht.modularrouters.config.ConfigHandler;
 import me.desht.modularrouters.logic.ModuleTarget;
-import me.desht.modularrouters.util.InventoryUtils;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.items.IItemHandler;
@@ -13,13 +12,23 @@ public class CompiledPullerModule extends CompiledModule {
         super(router, stack);
     }
 
+    @Override
+    public BufferEffect getBufferEffect() {
+        return BufferEffect.FILLS;
+    }
+
+    @Override
+    public boolean allowsBulkPasses() {
+        return true;
+    }
+
     @Override
     public boolean execute(TileEntityItemRouter router) {
         if (!router.isBufferFull()) {
             if (!validateRange(router, getTarget())) {
                 return false;
             }
-            IItemHandler handler = InventoryUtils.getInventory(router.getWorld(), getTarget().pos, getTarget().face);
+            IItemHandler handler = getTargetInventory(router.getWorld(), getTarget().pos, getTarget().face);
             if (handler != null) {
                 int taken = transferToRouter(handler, router);
                 if (taken > 0) {
@@ -1,34 +1,58 @@
 package me.desht.modularrouters.logic.compiled;
 
-import me.desht.modularrouters.ModularRouters;
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
 import me.desht.modularrouters.item.module.TargetedModule;
 import me.desht.modularrouters.item.upgrade.ItemUpgrade;
 import me.desht.modularrouters.logic.ModuleTarget;
-import me.desht.modularrouters.network.ParticleBeamMessage;
+import me.desht.modularrouters.logic.ParticleBeamBatcher;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
-import net.minecraftforge.fml.common.network.NetworkRegistry;
 
 import java.awt.*;
 
 public class CompiledPullerModule2 extends CompiledPullerModule {
     private static final Color particleColor = Color.BLUE;
 
+    private final ItemStack moduleStack;
+    private boolean inRange;
+
     public CompiledPullerModule2(TileEntityItemRouter router, ItemStack stack) {
         super(router, stack);
+        moduleStack = stack;
     }
 
     @Override
     protected ModuleTarget setupTarget(TileEntityItemRouter router, ItemStack stack) {
-        return TargetedModule.getTarget(stack, !router.getWorld().isRemote);
+        // target block name is kept up to date by the TargetValidator, not here
+        return TargetedModule.getTarget(stack);
     }
 
     @Override
-    boolean validateRange(TileEntityItemRouter router, ModuleTarget target) {
-        return router.getWorld().provider.getDimension() == target.dimId &&
+    public void onCompiled(TileEntityItemRouter router) {
+        super.onCompiled(router);
+        // router position, target & range can't change without a recompile
+        ModuleTarget target = getTarget();
+        inRange = target != null && router.getWorld().provider.getDimension() == target.dimId &&
                 router.getPos().distanceSq(target.pos) <= getRangeSquared();
+        watchTarget(router, moduleStack);
+    }
+
+    @Override
+    public void cleanup(TileEntityItemRouter router) {
+        super.cleanup(router);
+        unwatchTarget();
+    }
+
+    @Override
+    public void onRouterUnloaded(TileEntityItemRouter router) {
+        super.onRouterUnloaded(router);
+        unwatchTarget();
+    }
+
+    @Override
+    boolean validateRange(TileEntityItemRouter router, ModuleTarget target) {
+        return inRange && target.isChunkLoaded();
     }
 
     @Override
@@ -36,8 +60,7 @@ public class CompiledPullerModule2 extends CompiledPullerModule {
         if (router.getUpgradeCount(ItemUpgrade.UpgradeType.MUFFLER) < 2) {
             Vec3d vec1 = new Vec3d(router.getPos()).addVector(0.5, 0.5, 0.5);
             Vec3d vec2 = new Vec3d(targetPos).addVector(0.5, 0.5, 0.5);
-            NetworkRegistry.TargetPoint point = new NetworkRegistry.TargetPoint(router.getWorld().provider.getDimension(), vec1.x, vec1.y, vec1.z, 32);
-            ModularRouters.network.sendToAllAround(new ParticleBeamMessage(vec1.x, vec1.y, vec1.z, vec2.x, vec2.y, vec2.z, particleColor, 0.5f), point);
+            ParticleBeamBatcher.queue(router.getWorld(), vec1.x, vec1.y, vec1.z, vec2.x, vec2.y, vec2.z, particleColor, 0.5f);
         }
     }
 }
@@ -1,13 +1,12 @@
 package me.desht.modularrouters.logic.compiled;
 
-import me.desht.modularrouters.ModularRouters;
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
 import me.desht.modularrouters.config.ConfigHandler;
 import me.desht.modularrouters.item.upgrade.ItemUpgrade;
 import me.desht.modularrouters.logic.ModuleTarget;
-import me.desht.modularrouters.network.ParticleBeamMessage;
+import me.desht.modularrouters.logic.ParticleBeamBatcher;
 import me.desht.modularrouters.util.BlockUtil;
-import me.desht.modularrouters.util.InventoryUtils;
+import me.desht.modularrouters.util.InventoryCensus;
 import net.minecraft.block.state.BlockFaceShape;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.item.ItemStack;
@@ -16,7 +15,6 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 import net.minecraftforge.common.DimensionManager;
-import net.minecraftforge.fml.common.network.NetworkRegistry;
 import net.minecraftforge.items.IItemHandler;
 
 import java.awt.*;
@@ -28,6 +26,16 @@ public class CompiledSenderModule1 extends CompiledModule {
         super(router, stack);
     }
 
+    @Override
+    public BufferEffect getBufferEffect() {
+        return BufferEffect.DRAINS;
+    }
+
+    @Override
+    public boolean allowsBulkPasses() {
+        return true;
+    }
+
     @Override
     public boolean execute(TileEntityItemRouter router) {
         IItemHandler buffer = router.getBuffer();
@@ -36,14 +44,16 @@ public class CompiledSenderModule1 extends CompiledModule {
             PositionedItemHandler target = findTargetInventory(router);
             if (target != null) {
                 int nToSend = getItemsPerTick(router);
+                InventoryCensus census = null;
                 if (getRegulationAmount() > 0) {
-                    int existing = InventoryUtils.countItems(bufferStack, target.handler, getRegulationAmount(), !getFilter().getFlags().isIgnoreMeta());
+                    census = getCensus(router, target.handler);
+                    int existing = census.count(bufferStack, !getFilter().getFlags().isIgnoreMeta());
                     nToSend = Math.min(nToSend, getRegulationAmount() - existing);
                     if (nToSend <= 0) {
                         return false;
                     }
                 }
-                int sent = InventoryUtils.transferItems(buffer, target.handler, 0, nToSend);
+                int sent = transferFromRouter(router, target.handler, nToSend, census);
                 if (sent > 0) {
                     if (ConfigHandler.module.senderParticles) {
                         playParticles(router, target.pos);
@@ -61,15 +71,14 @@ public class CompiledSenderModule1 extends CompiledModule {
         if (router.getUpgradeCount(ItemUpgrade.UpgradeType.MUFFLER) < 2) {
             Vec3d vec1 = new Vec3d(router.getPos()).addVector(0.5, 0.5, 0.5);
             Vec3d vec2 = new Vec3d(targetPos).addVector(0.5, 0.5, 0.5);
-            NetworkRegistry.TargetPoint point = new NetworkRegistry.TargetPoint(router.getWorld().provider.getDimension(), vec1.x, vec1.y, vec1.z, 32);
-            ModularRouters.network.sendToAllAround(new ParticleBeamMessage(vec1.x, vec1.y, vec1.z, vec2.x, vec2.y, vec2.z, particleColor, 0.3f), point);
+            ParticleBeamBatcher.queue(router.getWorld(), vec1.x, vec1.y, vec1.z, vec2.x, vec2.y, vec2.z, particleColor, 0.3f);
         }
     }
 
     protected PositionedItemHandler findTargetInventory(TileEntityItemRouter router) {
         ModuleTarget target = getActualTarget(router);
         if (target != null) {
-            IItemHandler handler = InventoryUtils.getInventory(DimensionManager.getWorld(target.dimId), target.pos, target.face);
+            IItemHandler handler = getTargetInventory(DimensionManager.getWorld(target.dimId), target.pos, target.face);
             return handler == null ? null : new PositionedItemHandler(target.pos, handler);
         }
         return null;
@@ -3,32 +3,56 @@ package me.desht.modularrouters.logic.compiled;
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
 import me.desht.modularrouters.item.module.TargetedModule;
 import me.desht.modularrouters.logic.ModuleTarget;
-import me.desht.modularrouters.util.InventoryUtils;
 import net.minecraft.item.ItemStack;
 import net.minecraft.world.WorldServer;
 import net.minecraftforge.common.DimensionManager;
 import net.minecraftforge.items.IItemHandler;
 
 public class CompiledSenderModule2 extends CompiledSenderModule1 {
+    private final ItemStack moduleStack;
+    private boolean inRange;
+
     public CompiledSenderModule2(TileEntityItemRouter router, ItemStack stack) {
         super(router, stack);
+        moduleStack = stack;
     }
 
     @Override
     protected ModuleTarget setupTarget(TileEntityItemRouter router, ItemStack stack) {
-        return TargetedModule.getTarget(stack, !router.getWorld().isRemote);
+        // target block name is kept up to date by the TargetValidator, not here
+        return TargetedModule.getTarget(stack);
+    }
+
+    @Override
+    public void onCompiled(TileEntityItemRouter router) {
+        super.onCompiled(router);
+        // router position, target & range can't change without a recompile
+        inRange = getTarget() != null && validate(router, getTarget());
+        watchTarget(router, moduleStack);
+    }
+
+    @Override
+    public void cleanup(TileEntityItemRouter router) {
+        super.cleanup(router);
+        unwatchTarget();
+    }
+
+    @Override
+    public void onRouterUnloaded(TileEntityItemRouter router) {
+        super.onRouterUnloaded(router);
+        unwatchTarget();
     }
 
     @Override
     protected PositionedItemHandler findTargetInventory(TileEntityItemRouter router) {
         ModuleTarget target = getTarget();
-        if (target == null || !validate(router, target)) {
+        if (target == null || !inRange) {
             return null;
         }
 
         WorldServer w = DimensionManager.getWorld(target.dimId);
-        if (w != null && w.getChunkProvider().chunkExists(target.pos.getX() >> 4, target.pos.getZ() >> 4)) {
-            IItemHandler handler = InventoryUtils.getInventory(w, target.pos, target.face);
+        if (w != null && target.isChunkLoaded()) {
+            IItemHandler handler = getTargetInventory(w, target.pos, target.face);
             return handler == null ? null : new PositionedItemHandler(target.pos, handler);
         }
 
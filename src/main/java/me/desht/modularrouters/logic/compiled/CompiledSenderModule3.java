@@ -1,14 +1,15 @@
 package me.desht.modularrouters.logic.compiled;
 
-import me.desht.modularrouters.ModularRouters;
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
 import me.desht.modularrouters.item.module.Module;
 import me.desht.modularrouters.item.upgrade.ItemUpgrade;
-import me.desht.modularrouters.network.ParticleBeamMessage;
+import me.desht.modularrouters.logic.ModuleTarget;
+import me.desht.modularrouters.logic.ParticleBeamBatcher;
+import me.desht.modularrouters.logic.SenderQueue;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
-import net.minecraftforge.fml.common.network.NetworkRegistry;
+import net.minecraftforge.items.IItemHandler;
 
 import java.awt.*;
 import java.util.Random;
@@ -22,6 +23,37 @@ public class CompiledSenderModule3 extends CompiledSenderModule2 {
         super(router, stack);
     }
 
+    @Override
+    public boolean execute(TileEntityItemRouter router) {
+        ModuleTarget target = getTarget();
+        if (target == null) {
+            return false;
+        }
+        if (!target.isChunkLoaded()) {
+            // target's not available right now; hold items in the queue until it is
+            return getRegulationAmount() == 0 && queueItems(router, target);
+        }
+        SenderQueue queue = SenderQueue.get(router.getWorld());
+        boolean delivered = queue.hasQueued(target) && queue.deliver(target);
+        return super.execute(router) || delivered;
+    }
+
+    private boolean queueItems(TileEntityItemRouter router, ModuleTarget target) {
+        IItemHandler buffer = router.getBuffer();
+        ItemStack bufferStack = buffer.getStackInSlot(0);
+        if (bufferStack.isEmpty() || !getFilter().test(bufferStack)) {
+            return false;
+        }
+        // once queued, the items belong to the destination, not to this module (see SenderQueue)
+        ItemStack toQueue = buffer.extractItem(0, getItemsPerTick(router), true);
+        int queued = SenderQueue.get(router.getWorld()).offer(target, toQueue);
+        if (queued > 0) {
+            buffer.extractItem(0, queued, false);
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public boolean isRangeLimited() {
         return false;
@@ -37,8 +69,7 @@ public class CompiledSenderModule3 extends CompiledSenderModule2 {
             double x2 = x + facing.getFrontOffsetX() * 1.2;
             y2 = (y2 < y - 2 || y2 > y + 2) ? y : y2 + (r.nextDouble() - 0.5) / 5.0;
             double z2 = z + facing.getFrontOffsetZ() * 1.2;
-            NetworkRegistry.TargetPoint point = new NetworkRegistry.TargetPoint(router.getWorld().provider.getDimension(), x, y, z, 32);
-            ModularRouters.network.sendToAllAround(new ParticleBeamMessage(x, y, z, x2, y2, z2, particleColor, 0.7f), point);
+            ParticleBeamBatcher.queue(router.getWorld(), x, y, z, x2, y2, z2, particleColor, 0.7f);
         }
     }
 }
@@ -7,7 +7,9 @@ import me.desht.modularrouters.item.augment.ItemAugment;
 import me.desht.modularrouters.item.module.Module;
 import me.desht.modularrouters.item.upgrade.ItemUpgrade;
 import me.desht.modularrouters.logic.ModuleTarget;
+import me.desht.modularrouters.util.EntitySectionCache;
 import me.desht.modularrouters.util.InventoryUtils;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.item.EntityItem;
 import net.minecraft.entity.item.EntityXPOrb;
 import net.minecraft.init.Items;
@@ -23,6 +25,7 @@ import net.minecraftforge.fluids.capability.IFluidHandler;
 import net.minecraftforge.fluids.capability.IFluidTankProperties;
 import net.minecraftforge.items.ItemHandlerHelper;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class CompiledVacuumModule extends CompiledModule {
@@ -37,6 +40,13 @@ public class CompiledVacuumModule extends CompiledModule {
     // does not survive router recompilation...
     private int xpBuffered = 0;
 
+    private final AxisAlignedBB box;
+    private final List<EntityItem> itemList = new ArrayList<>();
+    private final List<EntityXPOrb> orbList = new ArrayList<>();
+    private boolean entitiesPending = true;  // true if there may be something in range to vacuum up
+    private long nextRescan;
+    private TileEntityItemRouter router;  // set when registered with the vacuum tracker, so it can be woken
+
     public CompiledVacuumModule(TileEntityItemRouter router, ItemStack stack) {
         super(router, stack);
         fastPickup = getAugmentCount(ItemAugment.AugmentType.FAST_PICKUP) > 0;
@@ -46,17 +56,90 @@ public class CompiledVacuumModule extends CompiledModule {
         } else {
             xpJuiceStack = null;
         }
+        if (getTarget() != null) {
+            BlockPos centrePos = getTarget().pos;
+            int range = getRange();
+            box = new AxisAlignedBB(centrePos.add(-range, -range, -range), centrePos.add(range + 1, range + 1, range + 1));
+        } else {
+            box = null;
+        }
+    }
+
+    @Override
+    protected boolean canBackOff() {
+        // already skips scanning when nothing has appeared in range
+        return false;
+    }
+
+    @Override
+    public BufferEffect getBufferEffect() {
+        return BufferEffect.FILLS;
+    }
+
+    @Override
+    public boolean allowsBulkPasses() {
+        return true;
     }
 
     @Override
     public boolean execute(TileEntityItemRouter router) {
-        if (xpMode) {
-            return handleXpMode(router);
-        } else {
-            return handleItemMode(router);
+        long now = router.getWorld().getTotalWorldTime();
+        if (!entitiesPending && now < nextRescan) {
+            // nothing was in range last time we looked, and nothing has appeared there since
+            return false;
+        }
+        boolean res = xpMode ? handleXpMode(router) : handleItemMode(router);
+        nextRescan = now + ConfigHandler.module.vacuumRescanInterval;
+        return res;
+    }
+
+    @Override
+    public void onCompiled(TileEntityItemRouter router) {
+        super.onCompiled(router);
+        if (!router.getWorld().isRemote && box != null) {
+            this.router = router;
+            VacuumTracker.register(router.getWorld().provider.getDimension(), this);
         }
     }
 
+    @Override
+    public void cleanup(TileEntityItemRouter router) {
+        super.cleanup(router);
+        if (!router.getWorld().isRemote) {
+            VacuumTracker.unregister(router.getWorld().provider.getDimension(), this);
+        }
+    }
+
+    @Override
+    public void onRouterUnloaded(TileEntityItemRouter router) {
+        super.onRouterUnloaded(router);
+        VacuumTracker.unregister(router.getWorld().provider.getDimension(), this);
+    }
+
+    /**
+     * Called by the vacuum tracker when an item or XP orb enters the world.
+     *
+     * @param entity the entity
+     */
+    void onEntityJoined(Entity entity) {
+        if ((xpMode ? entity instanceof EntityXPOrb : entity instanceof EntityItem)
+                && box.intersects(entity.getEntityBoundingBox())) {
+            entitiesPending = true;
+            if (router != null) {
+                router.wake();
+            }
+        }
+    }
+
+    private static boolean anyAlive(List<? extends Entity> list) {
+        for (Entity entity : list) {
+            if (!entity.isDead) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean handleItemMode(TileEntityItemRouter router) {
         if (router.isBufferFull()) {
             return false;
@@ -64,15 +147,13 @@ public class CompiledVacuumModule extends CompiledModule {
 
         ItemStack bufferStack = router.getBuffer().getStackInSlot(0);
 
-        BlockPos centrePos = getTarget().pos;
-        int range = getRange();
-        List<EntityItem> items = router.getWorld().getEntitiesWithinAABB(EntityItem.class,
-                new AxisAlignedBB(centrePos.add(-range, -range, -range), centrePos.add(range + 1, range + 1, range + 1)));
+        EntitySectionCache cache = EntitySectionCache.getCache(router.getWorld());
+        List<EntityItem> items = cache.getEntities(router.getWorld(), EntityItem.class, box, itemList);
 
         int toPickUp = getItemsPerTick(router);
 
         for (EntityItem item : items) {
-            if (item.isDead || (!fastPickup && item.cannotPickup())) {
+            if (item.isDead || (!fastPickup && item.cannotPickup()) || !cache.canClaim(router.getWorld(), item, this)) {
                 continue;
             }
             ItemStack stackOnGround = item.getItem();
@@ -87,6 +168,9 @@ public class CompiledVacuumModule extends CompiledModule {
                 stackOnGround.grow(remaining);
                 int inserted = vacuumed.getCount() - remaining;
                 toPickUp -= inserted;
+                if (inserted > 0) {
+                    cache.claim(router.getWorld(), item, this);
+                }
                 if (stackOnGround.isEmpty()) {
                     item.setDead();
                 }
@@ -98,15 +182,12 @@ public class CompiledVacuumModule extends CompiledModule {
                 }
             }
         }
+        entitiesPending = anyAlive(items);
+        items.clear();
         return toPickUp < getItemsPerTick(router);
     }
 
     private boolean handleXpMode(TileEntityItemRouter router) {
-        BlockPos centrePos = getTarget().pos;
-        int range = getRange();
-        List<EntityXPOrb> orbs = router.getWorld().getEntitiesWithinAABB(EntityXPOrb.class,
-                new AxisAlignedBB(centrePos.add(-range, -range, -range), centrePos.add(range + 1, range + 1, range + 1)));
-
         ItemStack inRouterStack = router.getBufferItemStack();
 
         XPMethod xpMethod = XPMethod.NONE;
@@ -131,6 +212,8 @@ public class CompiledVacuumModule extends CompiledModule {
             return false;
         }
 
+        EntitySectionCache cache = EntitySectionCache.getCache(router.getWorld());
+        List<EntityXPOrb> orbs = cache.getEntities(router.getWorld(), EntityXPOrb.class, box, orbList);
         int initialSpaceForXp = spaceForXp;
         for (EntityXPOrb orb : orbs) {
             if (orb.getXpValue() > spaceForXp) {
@@ -163,6 +246,8 @@ public class CompiledVacuumModule extends CompiledModule {
             spaceForXp -= orb.getXpValue();
             orb.setDead();
         }
+        entitiesPending = anyAlive(orbs);
+        orbs.clear();
 
         return initialSpaceForXp - spaceForXp > 0;
     }
@@ -8,6 +8,16 @@ public class CompiledVoidModule extends CompiledModule  {
         super(router, stack);
     }
 
+    @Override
+    public BufferEffect getBufferEffect() {
+        return BufferEffect.DRAINS;
+    }
+
+    @Override
+    public boolean allowsBulkPasses() {
+        return true;
+    }
+
     @Override
     public boolean execute(TileEntityItemRouter router) {
         ItemStack stack = router.getBufferItemStack();
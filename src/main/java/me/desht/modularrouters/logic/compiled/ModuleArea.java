@@ -0,0 +1,88 @@
+package me.desht.modularrouters.logic.compiled;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * The block positions worked on by a Breaker or Placer module in area mode, i.e. with a range of more than 1 (via
+ * Range Augments).  The area starts at the block in front of the router and extends away from it; its shape is
+ * set in the module GUI.  Positions are visited in a fixed sweep order (nearest layer first, then row by row),
+ * picking up where the previous run left off.  Positions are worked out from the sweep cursor as they're needed,
+ * rather than stored, since a large cube can hold tens of thousands of them.
+ */
+public class ModuleArea {
+    public static final String NBT_SHAPE = "AreaShape";
+
+    // max positions visited per item to be processed, so a mostly-empty area can't cost too much per run
+    private static final int VISITS_PER_ITEM = 16;
+
+    public enum Shape {
+        LINE, PLANE, CUBE
+    }
+
+    private final BlockPos start;
+    private final EnumFacing facing;
+    private final int radius;
+    private final int width;
+    private final int size;
+    private int cursor;
+
+    ModuleArea(BlockPos start, EnumFacing facing, Shape shape, int range) {
+        this.start = start;
+        this.facing = facing;
+        this.radius = shape == Shape.LINE ? 0 : range - 1;
+        this.width = 2 * radius + 1;
+        int depth = shape == Shape.LINE ? range : shape == Shape.PLANE ? 1 : width;
+        this.size = depth * width * width;
+    }
+
+    /**
+     * Get the area for the given compiled module, if it's in area mode.
+     *
+     * @param cm the compiled module
+     * @param moduleStack the module item
+     * @return the area, or null if the module only works on its target block
+     */
+    static ModuleArea forModule(CompiledModule cm, ItemStack moduleStack) {
+        if (cm.getRange() <= 1 || cm.getTarget() == null || cm.getFacing() == null) {
+            return null;
+        }
+        return new ModuleArea(cm.getTarget().pos, cm.getFacing(), getShape(moduleStack), cm.getRange());
+    }
+
+    public static Shape getShape(ItemStack moduleStack) {
+        NBTTagCompound compound = moduleStack.getTagCompound();
+        int idx = compound == null ? 0 : compound.getInteger(NBT_SHAPE);
+        return idx >= 0 && idx < Shape.values().length ? Shape.values()[idx] : Shape.LINE;
+    }
+
+    /**
+     * Get the number of positions to visit in one run.
+     *
+     * @param nItems max number of blocks to be broken or placed this run
+     * @return the number of positions
+     */
+    int getVisitLimit(int nItems) {
+        return Math.min(size, nItems * VISITS_PER_ITEM);
+    }
+
+    /**
+     * Get the next position in the sweep.
+     *
+     * @return the block position
+     */
+    BlockPos next() {
+        int d = cursor / (width * width);
+        int v = (cursor / width) % width - radius;
+        int u = cursor % width - radius;
+        cursor = (cursor + 1) % size;
+        BlockPos layer = start.offset(facing, d);
+        switch (facing.getAxis()) {
+            case X: return layer.add(0, v, u);
+            case Y: return layer.add(u, 0, v);
+            default: return layer.add(u, v, 0);
+        }
+    }
+}
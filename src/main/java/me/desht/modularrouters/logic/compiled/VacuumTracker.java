@@ -0,0 +1,58 @@
+package me.desht.modularrouters.logic.compiled;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.item.EntityItem;
+import net.minecraft.entity.item.EntityXPOrb;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+import java.util.*;
+
+/**
+ * Keeps track of the active (server-side) vacuum modules in each world, and lets them know when an item or
+ * XP orb enters the world within their area.  This allows vacuum modules with nothing nearby to skip scanning
+ * for entities altogether.
+ */
+public class VacuumTracker {
+    private static final Map<Integer, Set<CompiledVacuumModule>> vacuums = new HashMap<>();
+
+    static void register(int dimension, CompiledVacuumModule vacuum) {
+        vacuums.computeIfAbsent(dimension, k -> new HashSet<>()).add(vacuum);
+    }
+
+    static void unregister(int dimension, CompiledVacuumModule vacuum) {
+        Set<CompiledVacuumModule> set = vacuums.get(dimension);
+        if (set != null) {
+            set.remove(vacuum);
+            if (set.isEmpty()) {
+                vacuums.remove(dimension);
+            }
+        }
+    }
+
+    @Mod.EventBusSubscriber
+    public static class Handler {
+        @SubscribeEvent
+        public static void onEntityJoinWorld(EntityJoinWorldEvent event) {
+            Entity entity = event.getEntity();
+            if (event.getWorld().isRemote || !(entity instanceof EntityItem || entity instanceof EntityXPOrb)) {
+                return;
+            }
+            Set<CompiledVacuumModule> set = vacuums.get(event.getWorld().provider.getDimension());
+            if (set != null) {
+                for (CompiledVacuumModule vacuum : set) {
+                    vacuum.onEntityJoined(entity);
+                }
+            }
+        }
+
+        @SubscribeEvent
+        public static void onWorldUnload(WorldEvent.Unload event) {
+            if (!event.getWorld().isRemote) {
+                vacuums.remove(event.getWorld().provider.getDimension());
+            }
+        }
+    }
+}
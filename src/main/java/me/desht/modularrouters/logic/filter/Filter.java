@@ -1,6 +1,8 @@
 package me.desht.modularrouters.logic.filter;
 
 import com.google.common.collect.Lists;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import me.desht.modularrouters.item.module.ItemModule;
 import me.desht.modularrouters.item.module.Module;
 import me.desht.modularrouters.item.module.Module.ModuleFlags;
@@ -9,15 +11,21 @@ import me.desht.modularrouters.item.smartfilter.SmartFilter;
 import me.desht.modularrouters.logic.ModuleTarget;
 import me.desht.modularrouters.logic.filter.matchers.FluidMatcher;
 import me.desht.modularrouters.logic.filter.matchers.IItemMatcher;
+import me.desht.modularrouters.logic.filter.matchers.SimpleItemMatcher;
 import me.desht.modularrouters.util.ModuleHelper;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fluids.Fluid;
+import net.minecraftforge.oredict.OreDictionary;
 import org.apache.commons.lang3.Validate;
 
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 
 public class Filter implements Predicate<ItemStack> {
@@ -26,6 +34,13 @@ public class Filter implements Predicate<ItemStack> {
     private final Flags flags;
     private final List<IItemMatcher> matchers = Lists.newArrayList();
 
+    // matchers reorganised for fast testing; see compileMatchers()
+    private final Map<Item, List<SimpleItemMatcher>> itemMatchers = new IdentityHashMap<>();
+    private final TIntObjectMap<List<SimpleItemMatcher>> oreMatchers = new TIntObjectHashMap<>();
+    private final List<IItemMatcher> otherMatchers = Lists.newArrayList();
+    private boolean cacheable = true;
+    private VerdictCache verdictCache;  // null if any matcher isn't cacheable
+
     public Filter() {
         flags = Flags.DEFAULT_FLAGS;
     }
@@ -42,11 +57,54 @@ public class Filter implements Predicate<ItemStack> {
                     matchers.add(matcher);
                 }
             }
+            compileMatchers();
         } else {
             flags = Flags.DEFAULT_FLAGS;
         }
     }
 
+    /**
+     * Sort the matchers into structures which can be tested quickly.  Simple item matchers are indexed by item,
+     * and (unless the ore dictionary is ignored) by the ore dictionary ID's of their filter item, so only the
+     * matchers which could possibly match a given item need be tried.  Any other matchers are tried afterwards,
+     * cheapest first.  The order of testing doesn't affect the result, since any match will do.
+     */
+    private void compileMatchers() {
+        for (IItemMatcher matcher : matchers) {
+            if (matcher.getClass() == SimpleItemMatcher.class) {
+                SimpleItemMatcher simple = (SimpleItemMatcher) matcher;
+                itemMatchers.computeIfAbsent(simple.getItem(), k -> Lists.newArrayList()).add(simple);
+                if (!flags.isIgnoreOredict()) {
+                    for (int id : simple.getOreIds()) {
+                        List<SimpleItemMatcher> list = oreMatchers.get(id);
+                        if (list == null) {
+                            list = Lists.newArrayList();
+                            oreMatchers.put(id, list);
+                        }
+                        list.add(simple);
+                    }
+                }
+            } else {
+                otherMatchers.add(matcher);
+            }
+        }
+        otherMatchers.sort(Comparator.comparingInt(IItemMatcher::getCost));
+        cacheable = matchers.stream().allMatch(IItemMatcher::isCacheable);
+        if (cacheable && !matchers.isEmpty()) {
+            verdictCache = new VerdictCache();
+        }
+    }
+
+    /**
+     * Check if this filter always gives the same verdict for the same item (item, metadata and NBT), so callers
+     * may remember its verdict.  False if any matcher depends on something else, e.g. an item's capabilities.
+     *
+     * @return true if the filter's verdicts can be cached
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
     private IItemMatcher createMatcher(ItemStack filterStack, ItemStack moduleStack, ModuleTarget target) {
         SmartFilter f = ItemSmartFilter.getFilter(filterStack);
         if (f != null) {
@@ -69,16 +127,57 @@ public class Filter implements Predicate<ItemStack> {
             return false;
         }
 
-        for (IItemMatcher matcher : matchers) {
-            if (matcher.matchItem(stack, flags)) {
-                return !flags.isBlacklist();
+        boolean matched;
+        if (verdictCache != null) {
+            Boolean cached = verdictCache.get(stack);
+            if (cached == null) {
+                cached = anyMatch(stack);
+                verdictCache.put(stack, cached);
             }
+            matched = cached;
+        } else {
+            matched = anyMatch(stack);
+        }
+        if (matched) {
+            return !flags.isBlacklist();
         }
 
         // no matches: test if this is a blacklist, fail if a whitelist
         return flags.isBlacklist();
     }
 
+    private boolean anyMatch(ItemStack stack) {
+        List<SimpleItemMatcher> list = itemMatchers.get(stack.getItem());
+        if (list != null) {
+            for (SimpleItemMatcher matcher : list) {
+                if (matcher.sameItem(stack, flags) && (flags.isIgnoreNBT() || matcher.matchNBT(stack))) {
+                    return true;
+                }
+            }
+        }
+
+        if (!oreMatchers.isEmpty()) {
+            for (int id : OreDictionary.getOreIDs(stack)) {
+                list = oreMatchers.get(id);
+                if (list != null) {
+                    for (SimpleItemMatcher matcher : list) {
+                        // an ore dictionary match only counts if the item (or its metadata) differs
+                        if (!matcher.sameItem(stack, flags)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+
+        for (IItemMatcher matcher : otherMatchers) {
+            if (matcher.matchItem(stack, flags)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean testFluid(Fluid fluid) {
         for (IItemMatcher matcher : matchers) {
             if (matcher instanceof FluidMatcher && ((FluidMatcher) matcher).matchFluid(fluid)) {
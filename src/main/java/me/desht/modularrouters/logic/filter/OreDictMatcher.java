@@ -10,6 +10,10 @@ public class OreDictMatcher {
         ids = OreDictionary.getOreIDs(stack);
     }
 
+    public int[] getIds() {
+        return ids;
+    }
+
     public boolean match(ItemStack stack) {
         if (ids.length == 0) return false;
 
@@ -0,0 +1,92 @@
+package me.desht.modularrouters.logic.filter;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.oredict.OreDictionary;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A small least-recently-used cache of filter verdicts, keyed by item, metadata and NBT.  Only usable for
+ * filters whose matchers give the same answer for any two stacks with the same item, metadata and NBT.
+ * <p>
+ * The whole cache is discarded whenever a new ore dictionary entry is registered, since that can change the
+ * result of an ore dictionary match.
+ */
+public class VerdictCache {
+    private static final int MAX_SIZE = 64;
+
+    private static int oreDictGeneration;
+
+    private final Map<Key, Boolean> verdicts = new LinkedHashMap<Key, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+    private final Key probe = new Key();
+    private int generation = oreDictGeneration;
+
+    /**
+     * Get the cached verdict for the given item.
+     *
+     * @param stack the item
+     * @return the verdict, or null if there is no cached verdict
+     */
+    Boolean get(ItemStack stack) {
+        if (generation != oreDictGeneration) {
+            verdicts.clear();
+            generation = oreDictGeneration;
+            return null;
+        }
+        Boolean verdict = verdicts.get(probe.set(stack.getItem(), stack.getItemDamage(), stack.getTagCompound()));
+        probe.tag = null;  // don't hang on to the stack's NBT
+        return verdict;
+    }
+
+    void put(ItemStack stack, boolean verdict) {
+        NBTTagCompound tag = stack.getTagCompound();
+        verdicts.put(new Key().set(stack.getItem(), stack.getItemDamage(), tag == null ? null : tag.copy()), verdict);
+    }
+
+    private static class Key {
+        private Item item;
+        private int meta;
+        private NBTTagCompound tag;
+        private int hash;
+
+        Key set(Item item, int meta, NBTTagCompound tag) {
+            this.item = item;
+            this.meta = meta;
+            this.tag = tag;
+            this.hash = 31 * (31 * Item.getIdFromItem(item) + meta) + (tag == null ? 0 : tag.hashCode());
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return item == key.item && meta == key.meta && hash == key.hash && Objects.equals(tag, key.tag);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Mod.EventBusSubscriber
+    public static class Handler {
+        @SubscribeEvent
+        public static void onOreRegister(OreDictionary.OreRegisterEvent event) {
+            oreDictGeneration++;
+        }
+    }
+}
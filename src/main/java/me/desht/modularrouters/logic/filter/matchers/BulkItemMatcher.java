@@ -34,6 +34,11 @@ public class BulkItemMatcher implements IItemMatcher {
         return false;
     }
 
+    @Override
+    public int getCost() {
+        return 2;
+    }
+
     private boolean matchOreDict(ItemStack stack) {
         for (int id : OreDictionary.getOreIDs(stack)) {
             if (oreDictIds.contains(id)) {
@@ -20,6 +20,17 @@ public class FluidMatcher implements IItemMatcher {
         return fStack2 != null && fStack2.getFluid() == fluid;
     }
 
+    @Override
+    public int getCost() {
+        return 5;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        // fluid contents are held in a capability, which isn't necessarily reflected in the item's NBT
+        return false;
+    }
+
     public boolean matchFluid(Fluid fluid) {
         return fluid == this.fluid;
     }
@@ -5,4 +5,25 @@ import net.minecraft.item.ItemStack;
 
 public interface IItemMatcher {
     boolean matchItem(ItemStack stack, Filter.Flags flags);
+
+    /**
+     * Get a rough relative cost of calling {@link #matchItem(ItemStack, Filter.Flags)}; filters try their cheapest
+     * matchers first.
+     *
+     * @return the relative cost; higher is more expensive
+     */
+    default int getCost() {
+        return 10;
+    }
+
+    /**
+     * Check if this matcher always gives the same result for any two stacks with the same item, metadata and NBT.
+     * If so, filters can remember the result.  This isn't the case if the result depends on item capabilities,
+     * for example.
+     *
+     * @return true if results from this matcher may be cached
+     */
+    default boolean isCacheable() {
+        return true;
+    }
 }
@@ -50,6 +50,22 @@ public class InspectionMatcher implements IItemMatcher {
         return matched >= comparisonList.items.size();
     }
 
+    @Override
+    public int getCost() {
+        return 8;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        // fluid & energy levels are held in capabilities, which aren't necessarily reflected in the item's NBT
+        for (Comparison comp : comparisonList.items) {
+            if (comp.subject == InspectionSubject.FLUID || comp.subject == InspectionSubject.ENERGY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static class ComparisonList {
         public final List<Comparison> items;
         boolean matchAll;
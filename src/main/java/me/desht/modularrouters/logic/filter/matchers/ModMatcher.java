@@ -18,4 +18,9 @@ public class ModMatcher implements IItemMatcher {
     public boolean matchItem(ItemStack stack, Filter.Flags flags) {
         return !stack.isEmpty() && modSet.contains(stack.getItem().getRegistryName().getResourceDomain());
     }
+
+    @Override
+    public int getCost() {
+        return 1;
+    }
 }
@@ -39,4 +39,9 @@ public class RegexMatcher implements IItemMatcher {
         }
         return false;
     }
+
+    @Override
+    public int getCost() {
+        return 8;
+    }
 }
@@ -4,40 +4,87 @@ import me.desht.modularrouters.logic.filter.Filter;
 import me.desht.modularrouters.logic.filter.OreDictMatcher;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 
 public class SimpleItemMatcher implements IItemMatcher {
+    private static final String GEN_TAG = "GEN";
+
     private final ItemStack filterStack;
     private final OreDictMatcher oreDictMatcher;
+    private final NBTTagCompound filterTag;  // with any "GEN" tag already stripped
+    private final boolean hasGenTag;
 
     public SimpleItemMatcher(ItemStack stack) {
         this.filterStack = stack;
         oreDictMatcher = new OreDictMatcher(stack);
+        NBTTagCompound tag = stack.getTagCompound();
+        hasGenTag = tag != null && tag.hasKey(GEN_TAG);
+        if (hasGenTag) {
+            tag = tag.copy();
+            tag.removeTag(GEN_TAG);
+        }
+        filterTag = tag;
     }
 
     @Override
     public boolean matchItem(ItemStack stack, Filter.Flags flags) {
-        if (Item.getIdFromItem(filterStack.getItem()) != Item.getIdFromItem(stack.getItem())) {
+        if (!sameItem(stack, flags)) {
             return !flags.isIgnoreOredict() && oreDictMatcher.match(stack);
         }
-        if (!flags.isIgnoreMeta() && filterStack.getItemDamage() != stack.getItemDamage()) {
-            return !flags.isIgnoreOredict() && oreDictMatcher.match(stack);
+        return flags.isIgnoreNBT() || matchNBT(stack);
+    }
+
+    @Override
+    public int getCost() {
+        return 0;
+    }
+
+    public Item getItem() {
+        return filterStack.getItem();
+    }
+
+    public int[] getOreIds() {
+        return oreDictMatcher.getIds();
+    }
+
+    /**
+     * Check if the given stack is the same item as this matcher's filter item, taking metadata into account if
+     * required.  If it's not, only an ore dictionary match can make this matcher match the stack.
+     *
+     * @param stack the stack to test
+     * @param flags the filter flags
+     * @return true if the item (and metadata) are the same
+     */
+    public boolean sameItem(ItemStack stack, Filter.Flags flags) {
+        return filterStack.getItem() == stack.getItem()
+                && (flags.isIgnoreMeta() || filterStack.getItemDamage() == stack.getItemDamage());
+    }
+
+    /**
+     * Check if the given stack's NBT matches this matcher's filter item NBT.  Any "GEN" tag is disregarded if the
+     * filter item has one.
+     *
+     * @param stack the stack to test
+     * @return true if the NBT matches
+     */
+    public boolean matchNBT(ItemStack stack) {
+        NBTTagCompound stackTag = stack.getTagCompound();
+        if (filterTag == null || stackTag == null) {
+            // note: a filter tag which only held "GEN" is empty, not null, after stripping
+            return filterTag == null && stackTag == null;
+        } else if (!hasGenTag) {
+            return filterTag.equals(stackTag);
+        }
+        // compare ignoring "GEN", without copying either tag
+        int size = stackTag.hasKey(GEN_TAG) ? stackTag.getSize() - 1 : stackTag.getSize();
+        if (size != filterTag.getSize()) {
+            return false;
         }
-        if (!flags.isIgnoreNBT()) {
-            NBTTagCompound filterTag = filterStack.getTagCompound();
-            NBTTagCompound stackTag = stack.getTagCompound();
-            if (filterTag == null && stackTag != null || filterTag != null && stackTag == null) {
+        for (String key : filterTag.getKeySet()) {
+            NBTBase tag = stackTag.getTag(key);
+            if (tag == null || !tag.equals(filterTag.getTag(key))) {
                 return false;
-            } else if (filterTag == null) {
-                return true;
-            } else if (!filterTag.hasKey("GEN")) {
-                return filterTag.equals(stackTag);
-            } else {
-                NBTTagCompound filterTag2 = filterTag.copy();
-                NBTTagCompound itemTag2 = stackTag.copy();
-                filterTag2.removeTag("GEN");
-                itemTag2.removeTag("GEN");
-                return filterTag2.equals(itemTag2);
             }
         }
         return true;
@@ -0,0 +1,138 @@
+package me.desht.modularrouters.network;
+
+import io.netty.buffer.ByteBuf;
+import me.desht.modularrouters.ModularRouters;
+import me.desht.modularrouters.client.fx.ParticleBeam;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Carries all the particle beams a player should see for one server tick.  Coordinates are sent as floats,
+ * which is plenty of precision for a particle effect.
+ */
+public class ParticleBeamBatchMessage implements IMessage {
+    private List<Beam> beams;
+
+    public ParticleBeamBatchMessage() {
+    }
+
+    public ParticleBeamBatchMessage(List<Beam> beams) {
+        this.beams = beams;
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        int n = ByteBufUtils.readVarInt(buf, 5);
+        beams = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            float x = buf.readFloat();
+            float y = buf.readFloat();
+            float z = buf.readFloat();
+            float x2 = buf.readFloat();
+            float y2 = buf.readFloat();
+            float z2 = buf.readFloat();
+            boolean flat = buf.readBoolean();
+            int rgb = flat ? buf.readInt() : 0;
+            float size = (buf.readByte() & 0xFF) / 255.0f;
+            beams.add(new Beam(x, y, z, x2, y2, z2, flat ? new Color(rgb) : null, size));
+        }
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        ByteBufUtils.writeVarInt(buf, beams.size(), 5);
+        for (Beam beam : beams) {
+            buf.writeFloat(beam.x);
+            buf.writeFloat(beam.y);
+            buf.writeFloat(beam.z);
+            buf.writeFloat(beam.x2);
+            buf.writeFloat(beam.y2);
+            buf.writeFloat(beam.z2);
+            buf.writeBoolean(beam.flat);
+            if (beam.flat) {
+                buf.writeInt(beam.rgb);
+            }
+            buf.writeByte((byte) (beam.size * 255));
+        }
+    }
+
+    public static class Beam {
+        private final float x, y, z;
+        private final float x2, y2, z2;
+        private final boolean flat;
+        private final int rgb;
+        private final float size;
+
+        public Beam(double x, double y, double z, double x2, double y2, double z2, Color color, float size) {
+            this.x = (float) x;
+            this.y = (float) y;
+            this.z = (float) z;
+            this.x2 = (float) x2;
+            this.y2 = (float) y2;
+            this.z2 = (float) z2;
+            this.flat = color != null;
+            this.rgb = flat ? color.getRGB() : 0;
+            this.size = size;
+        }
+
+        /**
+         * Get the squared distance from the start of this beam to the given point.
+         */
+        public double distanceSq(double px, double py, double pz) {
+            double dx = x - px;
+            double dy = y - py;
+            double dz = z - pz;
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        /**
+         * Two beams are considered the same if they run between the same pair of blocks in the same colour;
+         * there's no point in sending the same beam twice in one tick.
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Beam)) return false;
+            Beam beam = (Beam) o;
+            return blockKey(x, y, z) == blockKey(beam.x, beam.y, beam.z)
+                    && blockKey(x2, y2, z2) == blockKey(beam.x2, beam.y2, beam.z2)
+                    && flat == beam.flat && rgb == beam.rgb;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(blockKey(x, y, z), blockKey(x2, y2, z2), rgb);
+        }
+
+        private static long blockKey(float x, float y, float z) {
+            return ((long) MathHelper.floor(x) & 0x3FFFFFFL) << 38
+                    | ((long) MathHelper.floor(y) & 0xFFFL) << 26
+                    | (long) MathHelper.floor(z) & 0x3FFFFFFL;
+        }
+    }
+
+    public static class Handler implements IMessageHandler<ParticleBeamBatchMessage, IMessage> {
+        @Override
+        public IMessage onMessage(ParticleBeamBatchMessage msg, MessageContext ctx) {
+            ModularRouters.proxy.threadListener().addScheduledTask(() -> {
+                World w = ModularRouters.proxy.theClientWorld();
+                if (w != null) {
+                    for (Beam beam : msg.beams) {
+                        ParticleBeam.doParticleBeam(w, beam.x, beam.y, beam.z, beam.x2, beam.y2, beam.z2,
+                                beam.flat ? new Color(beam.rgb) : null, beam.size);
+                    }
+                }
+            });
+            return null;
+        }
+    }
+}
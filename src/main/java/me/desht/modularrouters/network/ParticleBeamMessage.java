@@ -3,7 +3,6 @@ package me.desht.modularrouters.network;
 import io.netty.buffer.ByteBuf;
 import me.desht.modularrouters.ModularRouters;
 import me.desht.modularrouters.client.fx.ParticleBeam;
-import me.desht.modularrouters.client.fx.Vector3;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
@@ -66,14 +65,13 @@ public class ParticleBeamMessage implements IMessage {
     public static class Handler implements IMessageHandler<ParticleBeamMessage, IMessage> {
         @Override
         public IMessage onMessage(ParticleBeamMessage msg, MessageContext ctx) {
-            World w = ModularRouters.proxy.theClientWorld();
-            if (w != null) {
-                ParticleBeam.doParticleBeam(w,
-                        new Vector3(msg.x, msg.y, msg.z),
-                        new Vector3(msg.x2, msg.y2, msg.z2),
-                        msg.flat ? new Color(msg.rgb) : null,
-                        msg.size);
-            }
+            ModularRouters.proxy.threadListener().addScheduledTask(() -> {
+                World w = ModularRouters.proxy.theClientWorld();
+                if (w != null) {
+                    ParticleBeam.doParticleBeam(w, msg.x, msg.y, msg.z, msg.x2, msg.y2, msg.z2,
+                            msg.flat ? new Color(msg.rgb) : null, msg.size);
+                }
+            });
             return null;
         }
     }
@@ -16,6 +16,7 @@ import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
  */
 public class RouterSettingsMessage implements IMessage {
     private boolean eco;
+    private boolean reactive;
     private TileEntityItemRouter router;
     private RouterRedstoneBehaviour rrb;
 
@@ -26,6 +27,7 @@ public class RouterSettingsMessage implements IMessage {
         this.router = router;
         this.rrb = router.getRedstoneBehaviour();
         this.eco = router.getEcoMode();
+        this.reactive = router.getReactiveMode();
     }
 
     @Override
@@ -37,6 +39,7 @@ public class RouterSettingsMessage implements IMessage {
         }
         rrb = RouterRedstoneBehaviour.values()[byteBuf.readByte()];
         eco = byteBuf.readBoolean();
+        reactive = byteBuf.readBoolean();
     }
 
     @Override
@@ -47,6 +50,7 @@ public class RouterSettingsMessage implements IMessage {
         byteBuf.writeInt(router.getWorld().provider.getDimension());
         byteBuf.writeByte(rrb.ordinal());
         byteBuf.writeBoolean(eco);
+        byteBuf.writeBoolean(reactive);
     }
 
     public static class Handler implements IMessageHandler<RouterSettingsMessage, IMessage> {
@@ -57,6 +61,7 @@ public class RouterSettingsMessage implements IMessage {
                 if (msg.router != null) {
                     msg.router.setRedstoneBehaviour(msg.rrb);
                     msg.router.setEcoMode(msg.eco);
+                    msg.router.setReactiveMode(msg.reactive);
                 }
             });
             return null;
@@ -0,0 +1,107 @@
+package me.desht.modularrouters.network;
+
+import io.netty.buffer.ByteBuf;
+import me.desht.modularrouters.ModularRouters;
+import me.desht.modularrouters.block.tile.TileEntityItemRouter;
+import me.desht.modularrouters.logic.RouterRedstoneBehaviour;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+
+/**
+ * Sent to clients tracking a router when some of its frequently-changing state changes; only the changed fields
+ * are sent.  Anything else is synced with a regular tile entity update.
+ */
+public class RouterSyncMessage implements IMessage {
+    public static final int ACTIVE = 0x01;
+    public static final int SIDES = 0x02;
+    public static final int ECO_MODE = 0x04;
+    public static final int REDSTONE_MODE = 0x08;
+    public static final int REACTIVE = 0x10;
+
+    private BlockPos pos;
+    private int fields;
+    private boolean active;
+    private byte sidesOpen;
+    private boolean ecoMode;
+    private boolean reactive;
+    private RouterRedstoneBehaviour redstoneBehaviour;
+
+    public RouterSyncMessage() {
+    }
+
+    public RouterSyncMessage(TileEntityItemRouter router, int fields) {
+        this.pos = router.getPos();
+        this.fields = fields;
+        this.active = router.isShownActive();
+        this.sidesOpen = router.getSidesOpen();
+        this.ecoMode = router.getEcoMode();
+        this.reactive = router.getReactiveMode();
+        this.redstoneBehaviour = router.getRedstoneBehaviour();
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        pos = BlockPos.fromLong(buf.readLong());
+        fields = buf.readByte();
+        if ((fields & ACTIVE) != 0) active = buf.readBoolean();
+        if ((fields & SIDES) != 0) sidesOpen = buf.readByte();
+        if ((fields & ECO_MODE) != 0) ecoMode = buf.readBoolean();
+        if ((fields & REDSTONE_MODE) != 0) redstoneBehaviour = RouterRedstoneBehaviour.values()[buf.readByte()];
+        if ((fields & REACTIVE) != 0) reactive = buf.readBoolean();
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        buf.writeLong(pos.toLong());
+        buf.writeByte(fields);
+        if ((fields & ACTIVE) != 0) buf.writeBoolean(active);
+        if ((fields & SIDES) != 0) buf.writeByte(sidesOpen);
+        if ((fields & ECO_MODE) != 0) buf.writeBoolean(ecoMode);
+        if ((fields & REDSTONE_MODE) != 0) buf.writeByte(redstoneBehaviour.ordinal());
+        if ((fields & REACTIVE) != 0) buf.writeBoolean(reactive);
+    }
+
+    public int getFields() {
+        return fields;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public byte getSidesOpen() {
+        return sidesOpen;
+    }
+
+    public boolean isEcoMode() {
+        return ecoMode;
+    }
+
+    public boolean isReactiveMode() {
+        return reactive;
+    }
+
+    public RouterRedstoneBehaviour getRedstoneBehaviour() {
+        return redstoneBehaviour;
+    }
+
+    public static class Handler implements IMessageHandler<RouterSyncMessage, IMessage> {
+        @Override
+        public IMessage onMessage(RouterSyncMessage msg, MessageContext ctx) {
+            ModularRouters.proxy.threadListener().addScheduledTask(() -> {
+                World w = ModularRouters.proxy.theClientWorld();
+                if (w != null) {
+                    TileEntity te = w.getTileEntity(msg.pos);
+                    if (te instanceof TileEntityItemRouter) {
+                        ((TileEntityItemRouter) te).processDeltaSync(msg);
+                    }
+                }
+            });
+            return null;
+        }
+    }
+}
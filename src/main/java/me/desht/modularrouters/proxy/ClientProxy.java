@@ -4,6 +4,8 @@ import me.desht.modularrouters.block.tile.ICamouflageable;
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
 import me.desht.modularrouters.client.ItemColours;
 import me.desht.modularrouters.client.ModelBakeEventHandler;
+import me.desht.modularrouters.client.RenderUpdateBatcher;
+import me.desht.modularrouters.client.fx.BeamRenderer;
 import me.desht.modularrouters.client.fx.FXSparkle;
 import me.desht.modularrouters.client.fx.RenderListener;
 import me.desht.modularrouters.core.RegistrarMR;
@@ -12,6 +14,7 @@ import me.desht.modularrouters.util.MiscUtil;
 import net.minecraft.client.Minecraft;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.IThreadListener;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraftforge.common.MinecraftForge;
 
@@ -28,6 +31,8 @@ public class ClientProxy extends CommonProxy {
         super.init();
 
         MinecraftForge.EVENT_BUS.register(RenderListener.class);
+        MinecraftForge.EVENT_BUS.register(RenderUpdateBatcher.class);
+        MinecraftForge.EVENT_BUS.register(BeamRenderer.class);
 
         registerBlockColors();
     }
@@ -112,4 +117,9 @@ public class ClientProxy extends CommonProxy {
             }
         }, RegistrarMR.ITEM_ROUTER, RegistrarMR.TEMPLATE_FRAME);
     }
+
+    @Override
+    public void markForRenderUpdate(BlockPos pos) {
+        RenderUpdateBatcher.markForRenderUpdate(pos);
+    }
 }
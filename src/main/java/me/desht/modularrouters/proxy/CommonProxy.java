@@ -2,6 +2,7 @@ package me.desht.modularrouters.proxy;
 
 import me.desht.modularrouters.block.tile.TileEntityItemRouter;
 import net.minecraft.util.IThreadListener;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
 public class CommonProxy {
@@ -36,4 +37,7 @@ public class CommonProxy {
     public TileEntityItemRouter getOpenItemRouter() {
         return null;
     }
+
+    public void markForRenderUpdate(BlockPos pos) {
+    }
 }
@@ -30,11 +30,10 @@ import net.minecraftforge.event.world.BlockEvent;
 import net.minecraftforge.fml.relauncher.ReflectionHelper;
 import net.minecraftforge.items.IItemHandler;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.UnaryOperator;
 
 public class BlockUtil {
     private static final String[] REED_ITEM = new String[]{"block", "field_150935_a", "a"};
@@ -204,19 +203,23 @@ public class BlockUtil {
         EntityPlayer fakePlayer = FakePlayer.getFakePlayer((WorldServer) world, pos).get();
         List<ItemStack> allDrops = getDrops(world, pos, fakePlayer, silkTouch, fortune);
 
-        Map<Boolean, List<ItemStack>> groups = allDrops.stream().collect(Collectors.partitioningBy(filter));
-        if (allDrops.isEmpty() || !groups.get(true).isEmpty()) {
-            BlockEvent.BreakEvent breakEvent = new BlockEvent.BreakEvent(world, pos, state, fakePlayer);
-            MinecraftForge.EVENT_BUS.post(breakEvent);
-            if (!breakEvent.isCanceled()) {
-                if (block instanceof BlockShulkerBox) {
-                    ItemStack stack = specialShulkerBoxHandling(world, pos);
-                    groups = new HashMap<>();
-                    groups.put(true, Lists.newArrayList(stack));
-                }
-                world.setBlockToAir(pos);
-                return new BreakResult(true, groups);
+        List<ItemStack> passed = new ArrayList<>(allDrops.size());
+        List<ItemStack> failed = new ArrayList<>(allDrops.size());
+        for (ItemStack drop : allDrops) {
+            (filter.test(drop) ? passed : failed).add(drop);
+        }
+        if (!allDrops.isEmpty() && passed.isEmpty()) {
+            return BreakResult.FILTER_REJECTED;
+        }
+        BlockEvent.BreakEvent breakEvent = new BlockEvent.BreakEvent(world, pos, state, fakePlayer);
+        MinecraftForge.EVENT_BUS.post(breakEvent);
+        if (!breakEvent.isCanceled()) {
+            if (block instanceof BlockShulkerBox) {
+                passed = Lists.newArrayList(specialShulkerBoxHandling(world, pos));
+                failed = Collections.emptyList();
             }
+            world.setBlockToAir(pos);
+            return new BreakResult(true, passed, failed);
         }
         return BreakResult.NOT_BROKEN;
     }
@@ -262,7 +265,10 @@ public class BlockUtil {
             NonNullList<ItemStack> drops = NonNullList.create();
             block.getDrops(drops, world, pos, state, fortune);
             float dropChance = ForgeEventFactory.fireBlockHarvesting(drops, world, pos, state, fortune, 1.0F, false, player);
-            return drops.stream().filter(s -> world.rand.nextFloat() <= dropChance).collect(Collectors.toList());
+            if (dropChance < 1.0F) {
+                drops.removeIf(s -> world.rand.nextFloat() > dropChance);
+            }
+            return drops;
         }
     }
 
@@ -284,35 +290,49 @@ public class BlockUtil {
     }
 
     public static class BreakResult {
-        static final BreakResult NOT_BROKEN = new BreakResult(false, Collections.emptyMap());
+        static final BreakResult NOT_BROKEN = new BreakResult(false, Collections.emptyList(), Collections.emptyList());
+        static final BreakResult FILTER_REJECTED = new BreakResult(false, Collections.emptyList(), Collections.emptyList());
 
         private final boolean blockBroken;
-        private final Map<Boolean,List<ItemStack>> drops;
+        private final List<ItemStack> passed;
+        private final List<ItemStack> failed;
 
-        BreakResult(boolean blockBroken, Map<Boolean, List<ItemStack>> drops) {
+        BreakResult(boolean blockBroken, List<ItemStack> passed, List<ItemStack> failed) {
             this.blockBroken = blockBroken;
-            this.drops = drops;
+            this.passed = passed;
+            this.failed = failed;
         }
 
         public boolean isBlockBroken() {
             return blockBroken;
         }
 
+        /**
+         * Check if the block was left alone because it had drops, none of which passed the filter.
+         *
+         * @return true if the filter rejected all the block's drops
+         */
+        public boolean isFilterRejected() {
+            return this == FILTER_REJECTED;
+        }
+
         List<ItemStack> getFilteredDrops(boolean passed) {
-            return drops.getOrDefault(passed, Collections.emptyList());
+            return passed ? this.passed : failed;
         }
 
         /**
-         * Process dropped items.  Items which matched the filter are inserted into the given item handler if possible.
-         * Items which didn't match the filter, or which matched but could not be inserted, are dropped on the ground.
+         * Process dropped items.  Items which matched the filter are inserted into the given item handler if possible;
+         * any which could not be inserted are passed to the given overflow handler.  Items which didn't match the
+         * filter, or which the overflow handler couldn't take, are dropped on the ground.
          *
          * @param world the world
          * @param pos the position to drop any items at
          * @param handler item handler to insert into
+         * @param overflow takes items which couldn't be inserted, and returns whatever it couldn't take
          */
-        public void processDrops(World world, BlockPos pos, IItemHandler handler) {
+        public void processDrops(World world, BlockPos pos, IItemHandler handler, UnaryOperator<ItemStack> overflow) {
             for (ItemStack drop : getFilteredDrops(true)) {
-                ItemStack excess = handler.insertItem(0, drop, false);
+                ItemStack excess = overflow.apply(handler.insertItem(0, drop, false));
                 if (!excess.isEmpty()) {
                     InventoryUtils.dropItems(world, pos, excess);
                 }
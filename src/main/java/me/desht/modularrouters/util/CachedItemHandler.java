@@ -0,0 +1,91 @@
+package me.desht.modularrouters.util;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.tileentity.TileEntityChest;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraftforge.items.IItemHandler;
+
+import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
+
+/**
+ * Remembers the item handler last retrieved via {@link InventoryUtils#getInventory(World, BlockPos, EnumFacing)},
+ * so that repeated lookups of the same inventory can skip the tile entity & capability resolution.  The tile entity
+ * is only weakly referenced; the cached handler is discarded if the tile entity is invalidated, if its chunk
+ * is unloaded (or unloaded and reloaded), or if {@link #invalidate()} is called.
+ */
+public class CachedItemHandler {
+    private WeakReference<World> worldRef = new WeakReference<>(null);
+    private WeakReference<TileEntity> teRef = new WeakReference<>(null);
+    private WeakReference<Chunk> chunkRef = new WeakReference<>(null);
+    private IItemHandler handler;
+    private BlockPos pos;
+    private EnumFacing side;
+    private TileEntityChest[] adjacentChests;
+
+    /**
+     * Get the item handler at the given place, from the given side.
+     *
+     * @param world the world
+     * @param pos block position of the item handler TE
+     * @param side side to access the TE from (may be null)
+     * @return the item handler, or null if there is none
+     */
+    public IItemHandler get(World world, BlockPos pos, @Nullable EnumFacing side) {
+        if (!isValid(world, pos, side)) {
+            invalidate();
+            IItemHandler res = InventoryUtils.getInventory(world, pos, side);
+            if (res != null) {
+                TileEntity te = world.getTileEntity(pos);
+                worldRef = new WeakReference<>(world);
+                teRef = new WeakReference<>(te);
+                chunkRef = new WeakReference<>(world.getChunkFromBlockCoords(pos));
+                this.pos = pos.toImmutable();
+                this.side = side;
+                this.handler = res;
+                this.adjacentChests = te instanceof TileEntityChest ? getAdjacentChests((TileEntityChest) te) : null;
+            }
+            return res;
+        }
+        return handler;
+    }
+
+    /**
+     * Discard any cached handler; the next call to {@link #get(World, BlockPos, EnumFacing)} will do a full lookup.
+     */
+    public void invalidate() {
+        handler = null;
+        teRef = new WeakReference<>(null);
+        adjacentChests = null;
+    }
+
+    private boolean isValid(World world, BlockPos pos, EnumFacing side) {
+        if (handler == null || worldRef.get() != world || !pos.equals(this.pos) || side != this.side) {
+            return false;
+        }
+        TileEntity te = teRef.get();
+        if (te == null || te.isInvalid()) {
+            return false;
+        }
+        Chunk chunk = world.getChunkProvider().getLoadedChunk(pos.getX() >> 4, pos.getZ() >> 4);
+        if (chunk == null || chunk != chunkRef.get()) {
+            return false;
+        }
+        // a chest can become (or stop being) part of a double chest without itself changing
+        return adjacentChests == null || sameAdjacentChests((TileEntityChest) te);
+    }
+
+    private boolean sameAdjacentChests(TileEntityChest chest) {
+        return chest.adjacentChestXNeg == adjacentChests[0] && chest.adjacentChestXPos == adjacentChests[1]
+                && chest.adjacentChestZNeg == adjacentChests[2] && chest.adjacentChestZPos == adjacentChests[3];
+    }
+
+    private static TileEntityChest[] getAdjacentChests(TileEntityChest chest) {
+        return new TileEntityChest[] {
+                chest.adjacentChestXNeg, chest.adjacentChestXPos, chest.adjacentChestZNeg, chest.adjacentChestZPos
+        };
+    }
+}
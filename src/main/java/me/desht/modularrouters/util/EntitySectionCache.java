@@ -0,0 +1,155 @@
+package me.desht.modularrouters.util;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+import java.util.*;
+
+/**
+ * A per-world, per-tick cache of entities of particular types, by chunk section.  Each chunk section is only
+ * searched once per tick for each entity type, however many modules query overlapping areas.  The cache is
+ * discarded as soon as the world time moves on; a section's entry is also discarded if an entity joins the world
+ * in that section during the tick.
+ * <p>
+ * Query results are sorted by entity ID, and entities can be claimed for the rest of the tick, so that when
+ * several modules compete for the same entities, the outcome is deterministic and no entity is split between
+ * them.
+ */
+public class EntitySectionCache {
+    private static final Map<Integer, EntitySectionCache> caches = new HashMap<>();
+    private static final Comparator<Entity> BY_ID = Comparator.comparingInt(Entity::getEntityId);
+
+    private final Map<Class<? extends Entity>, Map<Long, List<Entity>>> sections = new HashMap<>();
+    private final Map<Integer, Object> claims = new HashMap<>();
+    private long tick = Long.MIN_VALUE;
+
+    private EntitySectionCache() {
+    }
+
+    public static EntitySectionCache getCache(World world) {
+        return caches.computeIfAbsent(world.provider.getDimension(), k -> new EntitySectionCache());
+    }
+
+    /**
+     * Find all the (live) entities of the given type whose bounding box intersects the given box.
+     *
+     * @param world the world
+     * @param cls the entity type
+     * @param box the area to search
+     * @param list a list to fill; it's cleared first
+     * @param <T> the entity type
+     * @return the filled list, sorted by entity ID
+     */
+    public <T extends Entity> List<T> getEntities(World world, Class<T> cls, AxisAlignedBB box, List<T> list) {
+        checkTick(world);
+        Map<Long, List<Entity>> bySection = sections.computeIfAbsent(cls, k -> new HashMap<>());
+        list.clear();
+        int minX = MathHelper.floor((box.minX - World.MAX_ENTITY_RADIUS) / 16.0D);
+        int maxX = MathHelper.floor((box.maxX + World.MAX_ENTITY_RADIUS) / 16.0D);
+        int minY = MathHelper.clamp(MathHelper.floor((box.minY - World.MAX_ENTITY_RADIUS) / 16.0D), 0, 15);
+        int maxY = MathHelper.clamp(MathHelper.floor((box.maxY + World.MAX_ENTITY_RADIUS) / 16.0D), 0, 15);
+        int minZ = MathHelper.floor((box.minZ - World.MAX_ENTITY_RADIUS) / 16.0D);
+        int maxZ = MathHelper.floor((box.maxZ + World.MAX_ENTITY_RADIUS) / 16.0D);
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                Chunk chunk = world.getChunkProvider().getLoadedChunk(x, z);
+                if (chunk == null) {
+                    continue;
+                }
+                for (int y = minY; y <= maxY; y++) {
+                    long key = sectionKey(x, y, z);
+                    List<Entity> section = bySection.get(key);
+                    if (section == null) {
+                        section = new ArrayList<>();
+                        for (T entity : chunk.getEntityLists()[y].getByClass(cls)) {
+                            section.add(entity);
+                        }
+                        bySection.put(key, section);
+                    }
+                    for (Entity entity : section) {
+                        if (!entity.isDead && entity.getEntityBoundingBox().intersects(box)) {
+                            list.add(cls.cast(entity));
+                        }
+                    }
+                }
+            }
+        }
+        list.sort(BY_ID);
+        return list;
+    }
+
+    /**
+     * Check if the given entity may be claimed by the given claimant; i.e. it's not already been claimed by
+     * something else this tick.
+     *
+     * @param world the world
+     * @param entity the entity
+     * @param claimant the claimant
+     * @return true if the entity is unclaimed, or already claimed by this claimant
+     */
+    public boolean canClaim(World world, Entity entity, Object claimant) {
+        checkTick(world);
+        Object owner = claims.get(entity.getEntityId());
+        return owner == null || owner == claimant;
+    }
+
+    /**
+     * Claim the given entity for the rest of this tick.
+     *
+     * @param world the world
+     * @param entity the entity
+     * @param claimant the claimant
+     */
+    public void claim(World world, Entity entity, Object claimant) {
+        checkTick(world);
+        claims.putIfAbsent(entity.getEntityId(), claimant);
+    }
+
+    private void checkTick(World world) {
+        long now = world.getTotalWorldTime();
+        if (now != tick) {
+            sections.clear();
+            claims.clear();
+            tick = now;
+        }
+    }
+
+    private void onEntityJoined(Entity entity) {
+        int y = MathHelper.clamp(MathHelper.floor(entity.posY / 16.0D), 0, 15);
+        long key = sectionKey(MathHelper.floor(entity.posX / 16.0D), y, MathHelper.floor(entity.posZ / 16.0D));
+        for (Map<Long, List<Entity>> bySection : sections.values()) {
+            bySection.remove(key);
+        }
+    }
+
+    private static long sectionKey(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 30 | ((long) z & 0x3FFFFFFL) << 4 | (y & 0xF);
+    }
+
+    @Mod.EventBusSubscriber
+    public static class Handler {
+        @SubscribeEvent
+        public static void onEntityJoinWorld(EntityJoinWorldEvent event) {
+            if (!event.getWorld().isRemote) {
+                EntitySectionCache cache = caches.get(event.getWorld().provider.getDimension());
+                if (cache != null) {
+                    cache.onEntityJoined(event.getEntity());
+                }
+            }
+        }
+
+        @SubscribeEvent
+        public static void onWorldUnload(WorldEvent.Unload event) {
+            if (!event.getWorld().isRemote) {
+                caches.remove(event.getWorld().provider.getDimension());
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package me.desht.modularrouters.util;
+
+import gnu.trove.map.hash.TObjectIntHashMap;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * A cached count of the items (by item and metadata; NBT is not considered) in an item handler, for use by
+ * modules with a Regulator Augment.  Rather than counting every slot of the inventory each time a module runs,
+ * the module patches the census with the items it moves itself via {@link #adjust(ItemStack, int)}, and the
+ * inventory is only fully recounted every so often, to pick up changes made by anything else.
+ */
+public class InventoryCensus {
+    private final WeakReference<IItemHandler> handlerRef;
+    private final CountedItemStacks counts = new CountedItemStacks();
+    private final TObjectIntHashMap<Item> itemCounts = new TObjectIntHashMap<>();
+    private int slots = -1;
+    private long countedAt;
+
+    public InventoryCensus(IItemHandler handler) {
+        this.handlerRef = new WeakReference<>(handler);
+    }
+
+    /**
+     * Check if this census is for the given item handler.
+     *
+     * @param handler the item handler
+     * @return true if this census counts the given handler
+     */
+    public boolean isFor(IItemHandler handler) {
+        return handlerRef.get() == handler;
+    }
+
+    /**
+     * Recount the item handler's contents if the last full count is too old.
+     *
+     * @param now the current world time
+     * @param interval max age (in ticks) of the last full count; 0 to recount every time
+     */
+    public void refresh(long now, int interval) {
+        IItemHandler handler = handlerRef.get();
+        if (handler == null) {
+            return;
+        }
+        if (interval <= 0 || slots != handler.getSlots() || now - countedAt >= interval || now < countedAt) {
+            recount(handler);
+            countedAt = now;
+        }
+    }
+
+    private void recount(IItemHandler handler) {
+        counts.clear();
+        itemCounts.clear();
+        slots = handler.getSlots();
+        for (int i = 0; i < slots; i++) {
+            ItemStack stack = handler.getStackInSlot(i);
+            if (!stack.isEmpty()) {
+                add(stack, stack.getCount());
+            }
+        }
+    }
+
+    /**
+     * Get the number of the given item in the inventory.  This matches
+     * {@link InventoryUtils#countItems(ItemStack, IItemHandler, int, boolean)} with no maximum.
+     *
+     * @param stack the item to count
+     * @param matchMeta whether or not to consider item metadata (always considered for non-damageable items)
+     * @return number of items counted
+     */
+    public int count(ItemStack stack, boolean matchMeta) {
+        if (stack.isEmpty()) {
+            return 0;
+        }
+        return matchMeta || !stack.isItemStackDamageable() ?
+                counts.getOrDefault(stack, 0) : itemCounts.get(stack.getItem());
+    }
+
+    /**
+     * Record a change to the inventory's contents made by the caller.
+     *
+     * @param stack the item which was added or removed
+     * @param delta number of items added (positive) or removed (negative)
+     */
+    public void adjust(ItemStack stack, int delta) {
+        if (!stack.isEmpty() && delta != 0) {
+            add(stack, delta);
+        }
+    }
+
+    private void add(ItemStack stack, int delta) {
+        int n = counts.getOrDefault(stack, 0) + delta;
+        if (n > 0) {
+            // key on a private copy; the stack in the inventory can change under us
+            counts.put(counts.containsKey(stack) ? stack : ItemHandlerHelper.copyStackWithSize(stack, 1), n);
+        } else {
+            counts.remove(stack);
+        }
+        int total = itemCounts.get(stack.getItem()) + delta;
+        if (total > 0) {
+            itemCounts.put(stack.getItem(), total);
+        } else {
+            itemCounts.remove(stack.getItem());
+        }
+    }
+}
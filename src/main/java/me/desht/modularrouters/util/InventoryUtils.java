@@ -11,6 +11,7 @@ import net.minecraftforge.items.CapabilityItemHandler;
 import net.minecraftforge.items.IItemHandler;
 import net.minecraftforge.items.ItemHandlerHelper;
 import net.minecraftforge.items.VanillaDoubleChestItemHandler;
+import org.apache.commons.lang3.mutable.MutableInt;
 
 import javax.annotation.Nullable;
 import java.util.Random;
@@ -101,6 +102,66 @@ public class InventoryUtils {
         return inserted;
     }
 
+    /**
+     * Transfer some items from the given slot in the given source item handler to the given destination handler,
+     * trying destination slots from the given slot hint onwards (wrapping round) rather than always from slot 0.
+     * The hint is updated to the last slot which accepted any items, so repeated transfers into a mostly-full
+     * inventory go straight to a slot with space, instead of rescanning all the full slots each time.
+     *
+     * @param from source item handler
+     * @param to destination item handler
+     * @param slot slot in the source handler
+     * @param count number of items to attempt to transfer
+     * @param destHint slot in the destination handler to try first; updated on success
+     * @return number of items actually transferred
+     */
+    public static int transferItems(IItemHandler from, IItemHandler to, int slot, int count, MutableInt destHint) {
+        if (from == null || to == null || count == 0) {
+            return 0;
+        }
+        ItemStack toSend = from.extractItem(slot, count, true);
+        if (toSend.isEmpty()) {
+            return 0;
+        }
+        ItemStack excess = insertItem(to, toSend, destHint);
+        int inserted = toSend.getCount() - excess.getCount();
+        from.extractItem(slot, inserted, false);
+        return inserted;
+    }
+
+    /**
+     * Insert an item stack into the given item handler, like
+     * {@link ItemHandlerHelper#insertItem(IItemHandler, ItemStack, boolean)}, but starting at the given slot hint
+     * and wrapping round.  The hint is updated to the last slot which accepted any items.
+     *
+     * @param dest destination item handler
+     * @param stack the item stack to insert
+     * @param hint slot to try first; updated on success
+     * @return the remainder of the stack which could not be inserted
+     */
+    public static ItemStack insertItem(IItemHandler dest, ItemStack stack, MutableInt hint) {
+        int size = dest.getSlots();
+        if (stack.isEmpty() || size == 0) {
+            return stack;
+        }
+        int start = hint.intValue() >= 0 && hint.intValue() < size ? hint.intValue() : 0;
+        int slot = start;
+        do {
+            int before = stack.getCount();
+            stack = dest.insertItem(slot, stack, false);
+            if (stack.getCount() < before) {
+                hint.setValue(slot);
+            }
+            if (stack.isEmpty()) {
+                break;
+            }
+            if (++slot >= size) {
+                slot = 0;
+            }
+        } while (slot != start);
+        return stack;
+    }
+
     /**
      * Drop an item stack into the world as an item entity.
      *
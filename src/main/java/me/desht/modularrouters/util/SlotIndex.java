@@ -0,0 +1,237 @@
+package me.desht.modularrouters.util;
+
+import gnu.trove.map.hash.TCustomHashMap;
+import gnu.trove.strategy.HashingStrategy;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * An incrementally-maintained index of the contents of a (large) item handler, mapping each distinct item
+ * (item, metadata and NBT) to the set of slots which hold it.  This allows a module to jump straight to the slots
+ * holding an item it wants, rather than scanning (and filter-testing) every slot of the inventory.
+ * <p>
+ * The owning module keeps the index up to date with its own changes to the inventory via {@link #updateSlot(int)},
+ * and should do the same for any slot the index turns out to be wrong about.  Changes made by anything else are
+ * picked up by {@link #refresh(long, int)}, which only re-checks the inventory every so often: each slot's stack
+ * is compared against a cheap fingerprint (object identity, count and metadata) taken when the slot was last
+ * indexed, and only changed slots are re-indexed.  As a safety net against in-place NBT changes, the whole index
+ * is rebuilt every so often.
+ */
+public class SlotIndex {
+    private static final int FULL_REBUILD_INTERVAL = 20;  // in refreshes
+
+    private final WeakReference<IItemHandler> handlerRef;
+    private final TCustomHashMap<ItemStack, Entry> entries = new TCustomHashMap<>(new ItemKeyStrategy());
+    private ItemStack[] seen = new ItemStack[0];
+    private int[] seenCount = new int[0];
+    private int[] seenMeta = new int[0];
+    private Entry[] slotEntries = new Entry[0];
+    private int refreshes;
+    private long verifiedAt;
+
+    public SlotIndex(IItemHandler handler) {
+        this.handlerRef = new WeakReference<>(handler);
+    }
+
+    /**
+     * Check if this index is for the given item handler.
+     *
+     * @param handler the item handler
+     * @return true if this index indexes the given handler
+     */
+    public boolean isFor(IItemHandler handler) {
+        return handlerRef.get() == handler;
+    }
+
+    /**
+     * Re-check the item handler's contents for changes made by anything other than the owning module, if the
+     * last check is too old.  The first refresh always does a full check.
+     *
+     * @param now the current world time
+     * @param interval max age (in ticks) of the last check; 0 to check every time
+     */
+    public void refresh(long now, int interval) {
+        IItemHandler handler = handlerRef.get();
+        if (handler == null) {
+            return;
+        }
+        int size = handler.getSlots();
+        if (size == seen.length && interval > 0 && now - verifiedAt < interval && now >= verifiedAt) {
+            return;
+        }
+        verifiedAt = now;
+        if (size != seen.length || ++refreshes >= FULL_REBUILD_INTERVAL) {
+            clear(size);
+        }
+        for (int slot = 0; slot < size; slot++) {
+            update(slot, handler.getStackInSlot(slot));
+        }
+    }
+
+    /**
+     * Re-index a single slot, e.g. after the owning module has extracted items from it.
+     *
+     * @param slot the slot number
+     */
+    public void updateSlot(int slot) {
+        IItemHandler handler = handlerRef.get();
+        if (handler != null && slot >= 0 && slot < seen.length && slot < handler.getSlots()) {
+            update(slot, handler.getStackInSlot(slot));
+        }
+    }
+
+    private void update(int slot, ItemStack stack) {
+        if (stack == seen[slot] && stack.getCount() == seenCount[slot] && stack.getMetadata() == seenMeta[slot]) {
+            return;
+        }
+        seen[slot] = stack;
+        seenCount[slot] = stack.getCount();
+        seenMeta[slot] = stack.getMetadata();
+        Entry entry = slotEntries[slot];
+        if (entry != null && !stack.isEmpty() && ItemKeyStrategy.sameItem(entry.key, stack)) {
+            return;  // a different stack object (or count), but still the same item
+        }
+        if (entry != null) {
+            entry.slots.clear(slot);
+            if (entry.slots.isEmpty()) {
+                entries.remove(entry.key);
+            }
+            slotEntries[slot] = null;
+        }
+        if (!stack.isEmpty()) {
+            entry = entries.get(stack);
+            if (entry == null) {
+                entry = new Entry(ItemHandlerHelper.copyStackWithSize(stack, 1));
+                entries.put(entry.key, entry);
+            }
+            entry.slots.set(slot);
+            slotEntries[slot] = entry;
+        }
+    }
+
+    private void clear(int size) {
+        entries.clear();
+        seen = new ItemStack[size];
+        seenCount = new int[size];
+        seenMeta = new int[size];
+        slotEntries = new Entry[size];
+        refreshes = 0;
+    }
+
+    /**
+     * Find the first slot, searching forward (and wrapping round) from the given start slot, which holds an
+     * item accepted by the given tests.  The first test is carried out once per distinct item, not once per slot;
+     * if it always gives the same answer for the same item, its verdict may also be remembered for later calls.
+     * The second (optional) test is never remembered.
+     *
+     * @param start slot to start searching from
+     * @param test test to apply to each distinct item
+     * @param cacheVerdict true if the verdict of the first test may be remembered
+     * @param extraTest additional test to apply to each distinct item, may be null
+     * @param skip slots to ignore, may be null
+     * @return the slot number, or -1 if no slot holds an acceptable item
+     */
+    public int findSlot(int start, Predicate<ItemStack> test, boolean cacheVerdict,
+                        @Nullable Predicate<ItemStack> extraTest, @Nullable BitSet skip) {
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Entry entry : entries.values()) {
+            boolean accepted;
+            if (cacheVerdict) {
+                if (entry.accepted == null) {
+                    entry.accepted = test.test(entry.key);
+                }
+                accepted = entry.accepted;
+            } else {
+                accepted = test.test(entry.key);
+            }
+            if (accepted && (extraTest == null || extraTest.test(entry.key))) {
+                int slot = nextSlot(entry.slots, start, skip);
+                if (slot < 0) {
+                    continue;
+                }
+                int distance = slot >= start ? slot - start : slot + seen.length - start;
+                if (distance < bestDistance) {
+                    best = slot;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the slots holding the given item (matching item, metadata and NBT), in order, searching forward from
+     * the given start slot and wrapping around.
+     *
+     * @param stack the item
+     * @param start slot to start from
+     * @return an array of slot numbers
+     */
+    public int[] getSlots(ItemStack stack, int start) {
+        Entry entry = entries.get(stack);
+        if (entry == null) {
+            return new int[0];
+        }
+        int[] res = new int[entry.slots.cardinality()];
+        int n = 0;
+        for (int slot = entry.slots.nextSetBit(start); slot >= 0; slot = entry.slots.nextSetBit(slot + 1)) {
+            res[n++] = slot;
+        }
+        for (int slot = entry.slots.nextSetBit(0); slot >= 0 && slot < start; slot = entry.slots.nextSetBit(slot + 1)) {
+            res[n++] = slot;
+        }
+        return res;
+    }
+
+    private static int nextSlot(BitSet slots, int start, @Nullable BitSet skip) {
+        int slot = nextSlot(slots, start, slots.length(), skip);
+        return slot >= 0 ? slot : nextSlot(slots, 0, start, skip);
+    }
+
+    private static int nextSlot(BitSet slots, int from, int to, @Nullable BitSet skip) {
+        for (int slot = slots.nextSetBit(from); slot >= 0 && slot < to; slot = slots.nextSetBit(slot + 1)) {
+            if (skip == null || !skip.get(slot)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private static class Entry {
+        private final ItemStack key;
+        private final BitSet slots = new BitSet();
+        private Boolean accepted;  // cached test verdict, if the test allows caching
+
+        Entry(ItemStack key) {
+            this.key = key;
+        }
+    }
+
+    private static class ItemKeyStrategy implements HashingStrategy<ItemStack> {
+        @Override
+        public int computeHashCode(ItemStack object) {
+            int h = 31 * Item.getIdFromItem(object.getItem()) + object.getMetadata();
+            return object.hasTagCompound() ? 31 * h + object.getTagCompound().hashCode() : h;
+        }
+
+        @Override
+        public boolean equals(ItemStack o1, ItemStack o2) {
+            return o1 == o2 || o1 != null && o2 != null && sameItem(o1, o2);
+        }
+
+        static boolean sameItem(ItemStack o1, ItemStack o2) {
+            return o1.getItem() == o2.getItem()
+                    && o1.getMetadata() == o2.getMetadata()
+                    && Objects.equals(o1.getTagCompound(), o2.getTagCompound());
+        }
+    }
+}